@@ -0,0 +1,20 @@
+package com.example.frequencyplayer;
+
+import java.nio.ByteBuffer;
+
+// Output device for interleaved 16 bit stereo PCM.
+public interface AudioSink {
+
+    void start();
+
+    // Blocks until the samples have been queued and returns the number of samples written.
+    int write(short[] buffer, int offset, int numSamples);
+
+    // Writes sizeInBytes of little endian PCM from the buffer's position, for example straight
+    // out of a memory mapped wav file. Returns the number of bytes written.
+    int write(ByteBuffer data, int sizeInBytes);
+
+    void stop();
+
+    void release();
+}
@@ -0,0 +1,64 @@
+package com.example.frequencyplayer;
+
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioTrack;
+
+import java.nio.ByteBuffer;
+
+// Streams interleaved 16 bit stereo PCM into an AudioTrack.
+public class AudioTrackSink implements AudioSink {
+
+    private static final int BYTES_PER_FRAME = 4; // 2 channels * 2 bytes
+
+    private final AudioTrack audioTrack;
+
+    public AudioTrackSink(int sampleRate, int framesPerBuffer) {
+        int minBufferSize = AudioTrack.getMinBufferSize(sampleRate,
+                AudioFormat.CHANNEL_OUT_STEREO, AudioFormat.ENCODING_PCM_16BIT);
+
+        // Two device buffers keep the track fed while the next block is being rendered
+        int bufferSize = Math.max(minBufferSize, 2 * framesPerBuffer * BYTES_PER_FRAME);
+
+        audioTrack = new AudioTrack.Builder()
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_MEDIA)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                        .build())
+                .setAudioFormat(new AudioFormat.Builder()
+                        .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                        .setSampleRate(sampleRate)
+                        .setChannelMask(AudioFormat.CHANNEL_OUT_STEREO)
+                        .build())
+                .setBufferSizeInBytes(bufferSize)
+                .setTransferMode(AudioTrack.MODE_STREAM)
+                .build();
+    }
+
+    @Override
+    public void start() {
+        audioTrack.play();
+    }
+
+    @Override
+    public int write(short[] buffer, int offset, int numSamples) {
+        return audioTrack.write(buffer, offset, numSamples, AudioTrack.WRITE_BLOCKING);
+    }
+
+    @Override
+    public int write(ByteBuffer data, int sizeInBytes) {
+        return audioTrack.write(data, sizeInBytes, AudioTrack.WRITE_BLOCKING);
+    }
+
+    @Override
+    public void stop() {
+        // Pause and flush instead of stop() so queued audio is dropped immediately
+        audioTrack.pause();
+        audioTrack.flush();
+    }
+
+    @Override
+    public void release() {
+        audioTrack.release();
+    }
+}
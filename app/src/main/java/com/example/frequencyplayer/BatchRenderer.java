@@ -0,0 +1,339 @@
+package com.example.frequencyplayer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+// Headless renderer for content libraries and engine profiling on a desktop JVM, next to
+// WavFile.main. Reads a manifest of sessions and renders each one to a wav file, the files
+// in parallel across cores, printing the throughput of every file and of the whole batch.
+//
+// Manifest lines, blank lines and lines starting with # are skipped:
+//   name frequency beat shiftDeg durationSec mode [technique]
+// mode is an OscillatorMode, technique a BeatTechnique and BINAURAL when left out.
+public class BatchRenderer {
+
+    public static final int DEFAULT_SAMPLE_RATE = 48000;
+
+    private static final Pattern FIELD_SEPARATOR = Pattern.compile("\\s+");
+
+    // Called from a pool thread for every finished entry.
+    public interface Listener {
+        void onRendered(Result result);
+    }
+
+    // One session of the manifest.
+    public static final class Entry {
+
+        private final String name;
+        private final BeatParameters parameters;
+        private final double durationSec;
+        private final OscillatorMode mode;
+
+        public Entry(String name, BeatParameters parameters, double durationSec, OscillatorMode mode) {
+            if (name.isEmpty()) throw new IllegalArgumentException("Name must not be empty.");
+            if (durationSec <= 0) throw new IllegalArgumentException("Duration must be positive.");
+
+            this.name = name;
+            this.parameters = parameters;
+            this.durationSec = durationSec;
+            this.mode = mode;
+        }
+
+        // Parses one manifest line, see the class comment for the fields.
+        public static Entry parse(String line) {
+            String[] fields = FIELD_SEPARATOR.split(line.trim());
+            if (fields.length < 6 || fields.length > 7) {
+                throw new IllegalArgumentException(String.format("Expected 6 or 7 fields, got %d.", fields.length));
+            }
+
+            BeatTechnique technique = fields.length == 7 ?
+                    BeatTechnique.valueOf(fields[6].toUpperCase(Locale.ROOT)) : BeatTechnique.BINAURAL;
+            BeatParameters parameters = new BeatParameters(Double.parseDouble(fields[1]), Double.parseDouble(fields[2]),
+                    Double.parseDouble(fields[3]), technique);
+            return new Entry(fields[0], parameters, Double.parseDouble(fields[4]),
+                    OscillatorMode.valueOf(fields[5].toUpperCase(Locale.ROOT)));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public BeatParameters getParameters() {
+            return parameters;
+        }
+
+        public double getDurationSec() {
+            return durationSec;
+        }
+
+        public OscillatorMode getMode() {
+            return mode;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Entry[name=%s, parameters=%s, durationSec=%.3f, mode=%s]",
+                    name, parameters, durationSec, mode);
+        }
+    }
+
+    // Outcome of one entry. A failed entry has an error and no file.
+    public static final class Result {
+
+        private final Entry entry;
+        private final File file;
+        private final long frames;
+        private final long bytes;
+        private final long elapsedNanos;
+        private final Throwable error;
+
+        Result(Entry entry, File file, long frames, long bytes, long elapsedNanos, Throwable error) {
+            this.entry = entry;
+            this.file = file;
+            this.frames = frames;
+            this.bytes = bytes;
+            this.elapsedNanos = elapsedNanos;
+            this.error = error;
+        }
+
+        public Entry getEntry() {
+            return entry;
+        }
+
+        public File getFile() {
+            return file;
+        }
+
+        public long getFrames() {
+            return frames;
+        }
+
+        // Size of the wav file, header included.
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null;
+        }
+
+        public double getFramesPerSecond() {
+            return elapsedNanos > 0 ? frames * 1e9 / elapsedNanos : 0.0;
+        }
+    }
+
+    private final File outputDirectory;
+    private final int sampleRate;
+    private final boolean dither;
+    private final ForkJoinPool pool;
+
+    public BatchRenderer(File outputDirectory, int sampleRate, boolean dither, ForkJoinPool pool) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("Sample rate must be positive.");
+
+        this.outputDirectory = outputDirectory;
+        this.sampleRate = sampleRate;
+        this.dither = dither;
+        this.pool = pool;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public static List<Entry> readManifest(File manifest) throws IOException {
+        Reader reader = new FileReader(manifest);
+        try {
+            return readManifest(reader);
+        } finally {
+            reader.close();
+        }
+    }
+
+    // Parses every entry of the manifest. Errors name the line they were found on.
+    public static List<Entry> readManifest(Reader manifest) throws IOException {
+        BufferedReader reader = new BufferedReader(manifest);
+        List<Entry> entries = new ArrayList<Entry>();
+
+        int lineNumber = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue;
+
+            try {
+                entries.add(Entry.parse(trimmed));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(String.format("Manifest line %d: %s", lineNumber, e.getMessage()), e);
+            }
+        }
+        return entries;
+    }
+
+    public File getOutputFile(Entry entry) {
+        return new File(outputDirectory, entry.getName() + Binaural.FILE_EXTENSION);
+    }
+
+    // Renders every entry on the pool and returns the results in manifest order. A failing entry
+    // does not stop the others. The listener is called from pool threads as files finish and may be null.
+    public List<Result> renderAll(List<Entry> entries, final Listener listener) throws InterruptedException {
+        if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+            throw new IllegalStateException("Cannot create output directory " + outputDirectory + ".");
+        }
+
+        List<Future<Result>> futures = new ArrayList<Future<Result>>();
+        for (final Entry entry : entries) {
+            futures.add(pool.submit(new Callable<Result>() {
+                @Override
+                public Result call() {
+                    Result result = render(entry);
+                    if (listener != null) listener.onRendered(result);
+                    return result;
+                }
+            }));
+        }
+
+        List<Result> results = new ArrayList<Result>();
+        for (Future<Result> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Render task failed.", e.getCause()); // render() catches its errors
+            }
+        }
+        return Collections.unmodifiableList(results);
+    }
+
+    // Renders one entry on the calling thread.
+    public Result render(Entry entry) {
+        File file = getOutputFile(entry);
+        long frames = Math.round(entry.getDurationSec() * sampleRate);
+        long start = System.nanoTime();
+
+        try {
+            BlockSource source = entry.getParameters().createSource(sampleRate, entry.getMode());
+            if (source instanceof FloatBlockSource) {
+                source = new QuantizedSource((FloatBlockSource) source, dither);
+            }
+
+            SessionExporter exporter = new SessionExporter(source, frames, sampleRate);
+            exporter.export(file, null);
+            return new Result(entry, file, frames, exporter.getFileSize(), exporter.getElapsedNanos(), null);
+
+        } catch (Exception e) {
+            return new Result(entry, null, 0, 0, System.nanoTime() - start, e);
+        }
+    }
+
+    public static void main(String[] args) {
+        File manifest = null;
+        File outputDirectory = new File(".");
+        int sampleRate = DEFAULT_SAMPLE_RATE;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean dither = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--out")) {
+                    outputDirectory = new File(args[++i]);
+                } else if (args[i].equals("--rate")) {
+                    sampleRate = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--threads")) {
+                    threads = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--dither")) {
+                    dither = true;
+                } else if (manifest == null) {
+                    manifest = new File(args[i]);
+                } else {
+                    throw new IllegalArgumentException("Unexpected argument " + args[i] + ".");
+                }
+            }
+            if (manifest == null) throw new IllegalArgumentException("Must supply a manifest.");
+        } catch (RuntimeException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: BatchRenderer <manifest> [--out dir] [--rate hz] [--threads n] [--dither]");
+            System.exit(2);
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            List<Entry> entries = readManifest(manifest);
+            final BatchRenderer renderer = new BatchRenderer(outputDirectory, sampleRate, dither, pool);
+
+            long start = System.nanoTime();
+            List<Result> results = renderer.renderAll(entries, new Listener() {
+                @Override
+                public void onRendered(Result result) {
+                    printResult(System.out, result, renderer.getSampleRate());
+                }
+            });
+            long wallNanos = System.nanoTime() - start;
+
+            boolean success = printSummary(System.out, results, wallNanos, threads, sampleRate);
+            System.exit(success ? 0 : 1);
+
+        } catch (Exception e) {
+            System.err.println(e);
+            e.printStackTrace();
+            System.exit(1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static void printResult(PrintStream out, Result result, int sampleRate) {
+        if (!result.isSuccess()) {
+            out.printf("%s: FAILED %s%n", result.getEntry().getName(), result.getError());
+            return;
+        }
+
+        out.printf("%s: %d frames, %.1f MB in %.1f ms, %.2f Mframes/s, %.1f MB/s, %.0f x real time%n",
+                result.getFile().getName(), result.getFrames(), result.getBytes() / 1e6,
+                result.getElapsedNanos() / 1e6, result.getFramesPerSecond() / 1e6,
+                result.getBytes() * 1e3 / result.getElapsedNanos(), result.getFramesPerSecond() / sampleRate);
+    }
+
+    // Prints the batch totals and returns false if any entry failed. The speedup compares the
+    // summed time of the files with the wall time, so it shows how well the cores were used.
+    static boolean printSummary(PrintStream out, List<Result> results, long wallNanos, int threads, int sampleRate) {
+        long frames = 0;
+        long bytes = 0;
+        long busyNanos = 0;
+        int failed = 0;
+        for (Result result : results) {
+            frames += result.getFrames();
+            bytes += result.getBytes();
+            busyNanos += result.getElapsedNanos();
+            if (!result.isSuccess()) failed++;
+        }
+
+        double wallSec = wallNanos / 1e9;
+        out.printf("Rendered %d of %d files, %.1f min of audio, %.1f MB in %.2f s on %d threads%n",
+                results.size() - failed, results.size(), frames / (60.0 * sampleRate), bytes / 1e6, wallSec, threads);
+        out.printf("Aggregate: %.2f Mframes/s, %.1f MB/s, %.0f x real time, %.2fx parallel speedup%n",
+                frames / wallSec / 1e6, bytes / wallSec / 1e6, frames / wallSec / sampleRate,
+                wallNanos > 0 ? (double) busyNanos / wallNanos : 0.0);
+        return failed == 0;
+    }
+}
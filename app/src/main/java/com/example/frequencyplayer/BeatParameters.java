@@ -0,0 +1,86 @@
+package com.example.frequencyplayer;
+
+// Parameters of a beat, shared by every technique. Playback asks it for a source and does not
+// need to know which technique it streams.
+public final class BeatParameters {
+
+    private final double frequency;
+    private final double beat;
+    private final double shiftDeg;
+    private final BeatTechnique technique;
+
+    public BeatParameters(double frequency, double beat, double shiftDeg, BeatTechnique technique) {
+        if (frequency <= 0) throw new IllegalArgumentException("Frequency must be positive.");
+
+        this.frequency = frequency;
+        this.beat = beat;
+        this.shiftDeg = shiftDeg;
+        this.technique = technique;
+    }
+
+    // Same parameters with another technique.
+    public BeatParameters withTechnique(BeatTechnique technique) {
+        return new BeatParameters(frequency, beat, shiftDeg, technique);
+    }
+
+    // Streaming stereo source of the beat. The shift is the phase of the second tone for
+    // BINAURAL and MONAURAL, and the phase of the gate for ISOCHRONIC.
+    public BlockSource createSource(int sampleRate, OscillatorMode mode) {
+        switch (technique) {
+            case ISOCHRONIC:
+                return new IsochronicSource(sampleRate, frequency, beat, shiftDeg, mode);
+            case MONAURAL:
+                return new MonauralSource(sampleRate, frequency, beat, shiftDeg, mode);
+            default:
+                return new BinauralSource(sampleRate, frequency, beat, shiftDeg, mode);
+        }
+    }
+
+    public double getFrequency() {
+        return frequency;
+    }
+
+    public double getBeat() {
+        return beat;
+    }
+
+    public double getShiftDeg() {
+        return shiftDeg;
+    }
+
+    public BeatTechnique getTechnique() {
+        return technique;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof BeatParameters)) return false;
+
+        BeatParameters other = (BeatParameters) o;
+        return Double.compare(frequency, other.frequency) == 0 &&
+                Double.compare(beat, other.beat) == 0 &&
+                Double.compare(shiftDeg, other.shiftDeg) == 0 &&
+                technique == other.technique;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash(frequency);
+        result = 31 * result + hash(beat);
+        result = 31 * result + hash(shiftDeg);
+        result = 31 * result + technique.hashCode();
+        return result;
+    }
+
+    private static int hash(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "BeatParameters[frequency=" + frequency + ", beat=" + beat + ", shiftDeg=" + shiftDeg +
+                ", technique=" + technique + "]";
+    }
+}
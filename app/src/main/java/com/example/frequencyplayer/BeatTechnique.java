@@ -0,0 +1,11 @@
+package com.example.frequencyplayer;
+
+// Ways of turning a carrier and a beat frequency into sound.
+public enum BeatTechnique {
+    // Carrier on one ear, carrier plus beat on the other. The beat forms in the brain, needs headphones.
+    BINAURAL,
+    // One carrier switched on and off at the beat rate with smooth edges, the same on both ears.
+    ISOCHRONIC,
+    // Carrier and carrier plus beat summed before the ears, so the beat is audible on speakers.
+    MONAURAL
+}
@@ -5,8 +5,13 @@ import android.util.Log;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 // Thanks to http://www.labbookpages.co.uk/audio/javaWavFiles.html
 
@@ -14,6 +19,7 @@ public class Binaural {
 
     // Built in features
     public static int sampleRate = 48000;
+    private static OscillatorMode oscillatorMode = OscillatorMode.DOUBLE;
     public static final short BIT_DEPTH = 16;
     public static final short NUM_CHANNELS = 2;
     public static final String FILE_EXTENSION = ".wav";
@@ -39,16 +45,38 @@ public class Binaural {
         put(201, 554.1627785);
     }};
 
-    // Data buffers
-    private static int[] rightChannel;
-    private static int[] leftChannel;
+    // Data buffer, interleaved stereo frames
+    private static Pcm16Buffer stereoBuffer;
+    private static int numFrames;
     private static boolean isBuffersFull = false;
 
-    // Remembered values to avoid unnecessary buffer generation
-    private static double lastFrequency;
-    private static double lastBeat;
-    private static double lastShiftDeg;
-    private static double lastPeriodDuration;
+    // Key of the data buffer, to avoid unnecessary buffer generation
+    private static RenderKey currentKey;
+
+    // Recent renders, so switching between presets does not synthesize them again
+    public static final long DEFAULT_CACHE_BYTES = 16L * 1024 * 1024;
+    private static final RenderCache renderCache = new RenderCache(DEFAULT_CACHE_BYTES);
+
+    // Renders persisted across app starts, optional
+    private static volatile DiskRenderCache diskCache;
+
+    private static double loopToleranceCycles = LoopPlanner.DEFAULT_TOLERANCE_CYCLES;
+
+    // A loop snaps the carrier and beat to whole periods. Loops off by more than this, in Hz, are
+    // not played, the beat streams at its exact frequencies instead (0.01 Hz covers the presets).
+    public static final double MAX_LOOP_PITCH_ERROR_HZ = 0.01;
+
+    // Plans of recently used keys, so a cached loop is not planned again. A plan is a few dozen bytes.
+    private static final int MAX_LOOP_PLANS = 64;
+    private static final Map<RenderKey, LoopPlan> loopPlans = new LinkedHashMap<RenderKey, LoopPlan>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<RenderKey, LoopPlan> eldest) {
+            return size() > MAX_LOOP_PLANS;
+        }
+    };
+
+    // Splits long renders into chunks, rendered in parallel when a pool is set
+    private static volatile ChunkedRenderer renderer = ChunkedRenderer.serial();
 
     public static void setSampleRate(int sampleRate) {
         Binaural.sampleRate = sampleRate;
@@ -58,32 +86,125 @@ public class Binaural {
         return sampleRate;
     }
 
-    // Creates an audio buffer with a single period of sine.
-    private static int[] createSinWavePeriod( double frequency, double shiftDeg) {
+    public static void setOscillatorMode(OscillatorMode oscillatorMode) {
+        Binaural.oscillatorMode = oscillatorMode;
+    }
 
-        double shiftRad = Math.toRadians(shiftDeg);
-        int numSamplesPerPeriod = (int)(sampleRate / frequency);
+    public static OscillatorMode getOscillatorMode() {
+        return oscillatorMode;
+    }
 
-        int[] buffer = new int[numSamplesPerPeriod];
+    // Phase mismatch in cycles a planned loop may have at its seam before its frequencies are snapped.
+    public static void setLoopTolerance(double toleranceCycles) {
+        loopToleranceCycles = toleranceCycles;
+    }
 
-        for (int i = 0; i< numSamplesPerPeriod; i++) {
-            double angle = 2.0*Math.PI*i/numSamplesPerPeriod;
-            buffer[i] = (short)(Math.sin(angle + shiftRad) * 32767); // 32767: [-1 1] double to short
-        }
-        return buffer;
+    public static double getLoopTolerance() {
+        return loopToleranceCycles;
     }
 
-    // Fills internal buffers with a single period of frequency repeated n times.
+    public static RenderCache getRenderCache() {
+        return renderCache;
+    }
+
+    // Renders long buffers in parallel chunks on the pool, or serially if it is null. Both give
+    // the same samples, so cached renders stay valid.
+    public static void setRenderPool(ForkJoinPool pool) {
+        renderer = pool == null ? ChunkedRenderer.serial() : new ChunkedRenderer(pool, ChunkedRenderer.DEFAULT_CHUNK_FRAMES);
+    }
+
+    public static ChunkedRenderer getRenderer() {
+        return renderer;
+    }
+
+    public static void setDiskCache(DiskRenderCache diskCache) {
+        Binaural.diskCache = diskCache;
+    }
+
+    public static DiskRenderCache getDiskCache() {
+        return diskCache;
+    }
+
+    // Fills the internal buffer with the shortest seamless loop of the beat, repeated to fill
+    // durationSec and played at least once.
     public static void generateBuffers(double frequency, double beat, double shiftDeg, double durationSec){
+        load(RenderKey.forDuration(frequency, beat, shiftDeg, durationSec, sampleRate, oscillatorMode));
+    }
 
-        if (durationSec <= 0) throw new IllegalArgumentException("Duration must me positive.");
+    // Fills the internal buffer with the shortest seamless loop of the beat. Both channels and the
+    // beat between them complete whole periods, so looping it never breaks their phase relationship.
+    public static LoopPlan generateLoop(double frequency, double beat, double shiftDeg){
+        RenderKey key = RenderKey.forLoop(frequency, beat, shiftDeg, loopToleranceCycles, sampleRate, oscillatorMode);
+        load(key);
+        return planLoop(key);
+    }
+
+    // Loop plan behind the buffer of the key. Planned by the first render or lookup of the key and
+    // remembered, so cache hits and repeated calls do not plan again.
+    static LoopPlan planLoop(RenderKey key){
+        synchronized (loopPlans) {
+            LoopPlan plan = loopPlans.get(key);
+            if (plan != null) return plan;
+        }
+
+        // Durations are made of planned loops too, with the default tolerance
+        double toleranceCycles = key.isLoop() ? key.getLoopToleranceCycles() : LoopPlanner.DEFAULT_TOLERANCE_CYCLES;
+        LoopPlan plan = LoopPlanner.plan(key.getSampleRate(), key.getFrequency(), key.getBeat(),
+                toleranceCycles, LoopPlanner.DEFAULT_MAX_DURATION_SEC);
+        synchronized (loopPlans) {
+            loopPlans.put(key, plan);
+        }
+        return plan;
+    }
+
+    // The shortest seamless loop of the beat as a LoopedBuffer, which streams it for any length of
+    // time with the memory of one loop. Goes through the render caches like generateLoop().
+    public static LoopedBuffer obtainLoopBuffer(double frequency, double beat, double shiftDeg){
+        RenderKey key = RenderKey.forLoop(frequency, beat, shiftDeg, loopToleranceCycles, sampleRate, oscillatorMode);
+        return obtain(key).loop();
+    }
+
+    // Whether the loop of the key plays its carrier and beat within MAX_LOOP_PITCH_ERROR_HZ.
+    public static boolean isLoopPlayable(RenderKey key){
+        LoopPlan plan = planLoop(key);
+        return Math.abs(plan.getRightFrequency() - key.getFrequency()) <= MAX_LOOP_PITCH_ERROR_HZ
+                && Math.abs(plan.getBeat() - key.getBeat()) <= MAX_LOOP_PITCH_ERROR_HZ;
+    }
+
+    // The loop of the beat as a LoopedBuffer if it is cached and playable, null otherwise. Never
+    // renders, so it is quick enough to call before starting playback.
+    public static LoopedBuffer getCachedLoopBuffer(double frequency, double beat, double shiftDeg){
+        RenderKey key = RenderKey.forLoop(frequency, beat, shiftDeg, loopToleranceCycles, sampleRate, oscillatorMode);
+        if (!isLoopPlayable(key)) return null;
+
+        Pcm16Buffer buffer = getCached(key);
+        return buffer != null ? buffer.loop() : null;
+    }
+
+    // Renders the loop of the beat into the caches on the executor if it is playable, so the next
+    // play of the beat is a cache hit. Returns whether a render was started.
+    public static boolean prerenderLoop(double frequency, double beat, double shiftDeg, Executor executor){
+        final RenderKey key = RenderKey.forLoop(frequency, beat, shiftDeg, loopToleranceCycles, sampleRate, oscillatorMode);
+        if (!isLoopPlayable(key)) return false;
+
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    prerender(key);
+                } catch (RuntimeException e) {
+                    Log.d("binaural", "Render of " + key + " failed: " + e);
+                }
+            }
+        });
+        return true;
+    }
+
+    // Makes the buffer of the given key the current data buffer.
+    private static void load(RenderKey key){
 
         // Return early if the buffers are already full with the exact same parameters
-        if (isBuffersFull &&
-                frequency == lastFrequency &&
-                beat == lastBeat &&
-                shiftDeg == lastShiftDeg &&
-                durationSec == lastPeriodDuration){
+        if (isBuffersFull && key.equals(currentKey)){
             Log.d("binaural", "Buffers already generated with the same parameters.");
             return;
         }
@@ -91,99 +212,182 @@ public class Binaural {
         // Clear the current data buffers
         clearBuffers();
 
-        // Create buffers for the raw data of a single period
-        int[] rightSinglePeriod = createSinWavePeriod(frequency, 0.0);
-        int[] leftSinglePeriod = createSinWavePeriod(frequency + beat, shiftDeg);
+        stereoBuffer = obtain(key);
+        numFrames = stereoBuffer.getNumFrames();
+        currentKey = key;
+        isBuffersFull = true;
+    }
 
-        // Number of samples to match the duration desired
-        int numSamplesToMatchDuration =  (int)(durationSec*sampleRate);
+    // Returns the interleaved buffer for the key from the render cache, then the disk cache,
+    // rendering and caching it on a miss. Safe to call from any thread, it does not touch the
+    // current data buffer.
+    public static Pcm16Buffer obtain(RenderKey key){
+        Pcm16Buffer buffer = getCached(key);
+        if (buffer != null) return buffer;
+
+        buffer = render(key);
+        renderCache.put(key, buffer);
+
+        DiskRenderCache disk = diskCache;
+        if (disk != null) {
+            try {
+                disk.put(key, buffer);
+            } catch (IOException e) {
+                e.printStackTrace();
+                Log.d("binaural", "Error writing disk cache.");
+            }
+        }
+        return buffer;
+    }
 
-        // Number of times each channel will be concatenated at the end of itself to match the
-        // desired duration while keeping perfect loopability
-        int numConcatsRight = numSamplesToMatchDuration/rightSinglePeriod.length;
-        int numConcatsLeft = numSamplesToMatchDuration/leftSinglePeriod.length;
+    // Returns the buffer of the key from the render cache, then the disk cache, or null. A disk
+    // cache hit is kept in the render cache.
+    private static Pcm16Buffer getCached(RenderKey key){
+        Pcm16Buffer buffer = renderCache.get(key);
+        if (buffer != null) {
+            Log.d("binaural", "Render cache hit for " + key);
+            return buffer;
+        }
 
-        // Splice the periods to match the desired channel length
-        rightChannel = Util.concatNTimes(rightSinglePeriod, numConcatsRight);
-        leftChannel = Util.concatNTimes(leftSinglePeriod, numConcatsLeft);
+        DiskRenderCache disk = diskCache;
+        if (disk != null) {
+            try {
+                buffer = disk.get(key);
+            } catch (IOException e) {
+                e.printStackTrace();
+                Log.d("binaural", "Error reading disk cache.");
+            }
+            if (buffer != null) {
+                Log.d("binaural", "Disk cache hit for " + key);
+                renderCache.put(key, buffer);
+                return buffer;
+            }
+        }
+        return null;
+    }
 
-        // Set the remembered values to the provided ones
-        isBuffersFull = true;
-        lastFrequency = frequency;
-        lastBeat = beat;
-        lastShiftDeg = shiftDeg;
-        lastPeriodDuration = durationSec;
+    // Renders the buffer of the key into the disk cache only, so rendering ahead of time does
+    // not push what is playing out of the render cache. Without a disk cache it goes through
+    // obtain() instead. Does nothing for a key that is already cached.
+    public static void prerender(RenderKey key){
+        DiskRenderCache disk = diskCache;
+        if (disk == null) {
+            obtain(key);
+            return;
+        }
+        if (renderCache.contains(key) || disk.contains(key)) return;
+
+        Pcm16Buffer buffer = render(key);
+        try {
+            disk.put(key, buffer);
+        } catch (IOException e) {
+            e.printStackTrace();
+            Log.d("binaural", "Error writing disk cache.");
+        }
+    }
+
+    // Synthesizes the interleaved buffer described by the key. Pure, safe to call from any thread.
+    public static Pcm16Buffer render(RenderKey key){
+        LoopPlan plan = planLoop(key);
+        Pcm16Buffer loop = renderLoop(key, plan);
+        if (key.isLoop()) {
+            return loop;
+        }
+
+        // Whole loops to match the duration. Both channels close their periods at the end of
+        // every loop, so the buffer itself loops without a jump on either channel.
+        int numSamplesToMatchDuration = (int) (key.getDurationSec() * key.getSampleRate());
+        int numLoops = Math.max(1, numSamplesToMatchDuration / plan.getNumFrames());
+
+        Pcm16Buffer buffer = new Pcm16Buffer(NUM_CHANNELS, numLoops * plan.getNumFrames());
+        loop.loop().read(0, buffer.getSamples(), 0, buffer.getNumFrames());
+        return buffer;
+    }
+
+    private static Pcm16Buffer renderLoop(RenderKey key, LoopPlan plan){
+        // Render exactly one loop with the snapped frequencies, channel by channel
+        int frames = plan.getNumFrames();
+        Pcm16Buffer buffer = new Pcm16Buffer(NUM_CHANNELS, frames);
+        ChunkedRenderer chunked = renderer;
+        chunked.renderSine(key.getSampleRate(), plan.getRightFrequency(), 0.0, key.getOscillatorMode(),
+                buffer.getSamples(), 0, frames, NUM_CHANNELS);
+        chunked.renderSine(key.getSampleRate(), plan.getLeftFrequency(), key.getShiftDeg(), key.getOscillatorMode(),
+                buffer.getSamples(), 1, frames, NUM_CHANNELS);
+        Log.d("binaural", "Generated " + plan);
+        return buffer;
     }
 
     public static void clearBuffers(){
-        rightChannel = null;
-        leftChannel = null;
+        stereoBuffer = null;
+        numFrames = 0;
+        currentKey = null;
         isBuffersFull = false;
     }
 
+    // Interleaved stereo samples of the last generated buffers, channel 0 first.
+    public static Pcm16Buffer getStereoBuffer() {
+        return stereoBuffer;
+    }
 
-    // Writes the wav file into cache and returns the absolute path.
-    public static File[] writeWaveFiles(String rightBaseName, String leftBaseName, Context context){
-        if (!isBuffersFull){
-            throw new IllegalStateException("Audio data buffers must be generated first.");
-        }
+    public static int getNumFrames() {
+        return numFrames;
+    }
 
-        File[] files = new File[NUM_CHANNELS];
 
-        // Right channel file
+    // Writes the wav file into cache and returns it, or null if it could not be written.
+    public static File writeWaveFile(String baseName, Context context){
         try {
-            // Create right channel file
-            File outputFileRight = File.createTempFile(rightBaseName, FILE_EXTENSION, context.getCacheDir());
-            WavFile wavFileRightChannel = WavFile.newWavFile(outputFileRight, NUM_CHANNELS, rightChannel.length, BIT_DEPTH, sampleRate);
+            File outputFile = File.createTempFile(baseName, FILE_EXTENSION, context.getCacheDir());
+            writeWaveFile(outputFile);
 
-            // Write right channel
-            for (int value : rightChannel) {
-
-                int[][] temp = new int[NUM_CHANNELS][1];
-                temp[0][0] = value;
-
-                wavFileRightChannel.writeFrames(temp, 1);
-            }
-            wavFileRightChannel.close();
-            files[0] = outputFileRight;
-
-            Log.d("binarual", String.format("Created cache file \"%s%s\".",  rightBaseName, FILE_EXTENSION));
+            Log.d("binarual", String.format("Created cache file \"%s%s\".",  baseName, FILE_EXTENSION));
+            return outputFile;
 
         }catch(IOException e){
             e.printStackTrace();
-            Log.d("binarual", String.format("Error creating cache \"file %s%s\".", rightBaseName, FILE_EXTENSION));
+            Log.d("binarual", String.format("Error creating cache \"file %s%s\".", baseName, FILE_EXTENSION));
         }catch (WavFileException e){
             e.printStackTrace();
             Log.d("binarual", "WavFile writing error.");
         }
+        return null;
+    }
 
-        // Left channel file
-        try{
-            // Create left channel file
-            File outputFileLeft = File.createTempFile(leftBaseName, FILE_EXTENSION, context.getCacheDir());
-            WavFile wavFileLeftChannel = WavFile.newWavFile(outputFileLeft  , NUM_CHANNELS, rightChannel.length, BIT_DEPTH, sampleRate);
-
-            // Write left channel
-            for (int value : leftChannel){
+    // Writes the interleaved stereo buffer into the given file with a single bulk call.
+    public static void writeWaveFile(File outputFile) throws IOException, WavFileException {
+        checkBuffersFull();
+        writeWave(WavFile.newWavFile(outputFile, NUM_CHANNELS, numFrames, BIT_DEPTH, sampleRate));
+    }
 
-                int[][] temp = new int[NUM_CHANNELS][1];
-                temp[1][0] = value; // 1 offset for left channel
+    // Writes the interleaved stereo buffer as a wav file into any stream, for example an exporter
+    // or a network upload. The stream is closed afterwards.
+    public static void writeWave(OutputStream outputStream) throws IOException, WavFileException {
+        checkBuffersFull();
+        writeWave(WavFile.newWavFile(outputStream, NUM_CHANNELS, numFrames, BIT_DEPTH, sampleRate));
+    }
 
-                wavFileLeftChannel.writeFrames(temp, 1);
-            }
-            wavFileLeftChannel.close();
-            files[1] = outputFileLeft;
+    // Encodes the interleaved stereo buffer as a complete wav file in memory, ready to be read
+    // from position 0, without touching the filesystem.
+    public static ByteBuffer encodeWave() throws IOException, WavFileException {
+        checkBuffersFull();
 
-            Log.d("binarual", String.format("Created cache file \"%s%s\".",  leftBaseName, FILE_EXTENSION));
+        ByteBuffer encoded = ByteBuffer.allocate((int) WavFile.getFileSize(NUM_CHANNELS, numFrames, BIT_DEPTH));
+        writeWave(WavFile.newWavFile(encoded, NUM_CHANNELS, numFrames, BIT_DEPTH, sampleRate));
+        encoded.flip();
+        return encoded;
+    }
 
-        }catch (IOException e){
-            e.printStackTrace();
-            Log.d("binarual", String.format("Error creating cache \"file %s%s\".", leftBaseName, FILE_EXTENSION));
-        }catch (WavFileException e){
-            e.printStackTrace();
-            Log.d("binarual", "WavFile writing error.");
+    private static void writeWave(WavFile wavFile) throws IOException, WavFileException {
+        try {
+            wavFile.writeFrames(stereoBuffer.getSamples(), numFrames);
+        } finally {
+            wavFile.close();
         }
+    }
 
-        return files;
+    private static void checkBuffersFull() {
+        if (!isBuffersFull){
+            throw new IllegalStateException("Audio data buffers must be generated first.");
+        }
     }
 }
@@ -0,0 +1,203 @@
+package com.example.frequencyplayer;
+
+import java.util.Arrays;
+
+// Sums any number of stereo voices, each with its own gain and balance, into one stereo block
+// and limits the sum with a SoftLimiter. Voices can be added and changed from any thread while
+// rendering. The render loop only touches buffers allocated up front.
+//
+// Mixing and limiting run in float. Voices that are a FloatBlockSource are mixed without going
+// through 16 bit, and the 16 bit render quantizes the limited mix once, optionally dithered.
+public class BinauralMixer implements BlockSource, FloatBlockSource {
+
+    public static final int DEFAULT_MAX_BLOCK_FRAMES = 4096;
+
+    private static final int NUM_CHANNELS = 2;
+    private static final float SHORT_TO_UNIT = 1f / 32767;
+
+    // One stereo source in the mix.
+    public static final class Voice {
+
+        private final BlockSource source;
+        private final FloatBlockSource floatSource; // Same source, null if it only renders 16 bit
+        private volatile double gain;
+        private volatile double pan;
+
+        // Per channel gains, swapped as a whole so the render thread never sees half an update
+        private volatile float[] channelGains;
+
+        private Voice(BlockSource source, double gain, double pan) {
+            this.source = source;
+            this.floatSource = source instanceof FloatBlockSource ? (FloatBlockSource) source : null;
+            setGain(gain);
+            setPan(pan);
+        }
+
+        public BlockSource getSource() {
+            return source;
+        }
+
+        public double getGain() {
+            return gain;
+        }
+
+        // Linear gain, 1 is unity. Gains above 1 are allowed, the limiter catches the peaks.
+        public void setGain(double gain) {
+            if (gain < 0) throw new IllegalArgumentException("Gain must not be negative.");
+            this.gain = gain;
+            update();
+        }
+
+        public double getPan() {
+            return pan;
+        }
+
+        // Balance in [-1, 1]: -1 keeps only channel 0, 1 only channel 1, 0 leaves both as they are.
+        // A balance rather than a pan law, so a centered binaural voice is not attenuated.
+        public void setPan(double pan) {
+            if (pan < -1 || pan > 1) throw new IllegalArgumentException("Pan must be in [-1, 1].");
+            this.pan = pan;
+            update();
+        }
+
+        private synchronized void update() {
+            channelGains = new float[]{
+                    (float) (gain * Math.min(1.0, 1.0 - pan)),
+                    (float) (gain * Math.min(1.0, 1.0 + pan))};
+        }
+    }
+
+    private final int maxBlockFrames;
+    private final float[] voiceBuffer;
+    private final short[] shortVoiceBuffer;
+    private final float[] mixBuffer;
+    private final SoftLimiter limiter;
+    private final Quantizer quantizer = new Quantizer(false);
+
+    // Replaced on every change, the render thread reads one snapshot per block
+    private volatile Voice[] voices = new Voice[0];
+
+    public BinauralMixer(int sampleRate) {
+        this(sampleRate, DEFAULT_MAX_BLOCK_FRAMES);
+    }
+
+    // Blocks larger than maxBlockFrames are mixed in several passes.
+    public BinauralMixer(int sampleRate, int maxBlockFrames) {
+        this(new SoftLimiter(sampleRate), maxBlockFrames);
+    }
+
+    public BinauralMixer(SoftLimiter limiter, int maxBlockFrames) {
+        if (maxBlockFrames <= 0) throw new IllegalArgumentException("Block size must be positive.");
+
+        this.maxBlockFrames = maxBlockFrames;
+        this.voiceBuffer = new float[NUM_CHANNELS * maxBlockFrames];
+        this.shortVoiceBuffer = new short[NUM_CHANNELS * maxBlockFrames];
+        this.mixBuffer = new float[NUM_CHANNELS * maxBlockFrames];
+        this.limiter = limiter;
+    }
+
+    public synchronized Voice addVoice(BlockSource source, double gain, double pan) {
+        if (source.getChannelCount() != NUM_CHANNELS) {
+            throw new IllegalArgumentException(String.format("Voices must have %d channels, got %d.",
+                    NUM_CHANNELS, source.getChannelCount()));
+        }
+
+        Voice voice = new Voice(source, gain, pan);
+
+        Voice[] grown = Arrays.copyOf(voices, voices.length + 1);
+        grown[voices.length] = voice;
+        voices = grown;
+        return voice;
+    }
+
+    // Returns false if the voice was not in the mix.
+    public synchronized boolean removeVoice(Voice voice) {
+        Voice[] current = voices;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != voice) continue;
+
+            Voice[] shrunk = new Voice[current.length - 1];
+            System.arraycopy(current, 0, shrunk, 0, i);
+            System.arraycopy(current, i + 1, shrunk, i, current.length - i - 1);
+            voices = shrunk;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void clear() {
+        voices = new Voice[0];
+    }
+
+    public int getVoiceCount() {
+        return voices.length;
+    }
+
+    public SoftLimiter getLimiter() {
+        return limiter;
+    }
+
+    // Quantizer of the 16 bit render, dither is off until turned on.
+    public Quantizer getQuantizer() {
+        return quantizer;
+    }
+
+    public int getMaxBlockFrames() {
+        return maxBlockFrames;
+    }
+
+    @Override
+    public int getChannelCount() {
+        return NUM_CHANNELS;
+    }
+
+    @Override
+    public void render(short[] out, int offset, int frames) {
+        for (int done = 0; done < frames; ) {
+            int n = Math.min(maxBlockFrames, frames - done);
+            mix(n);
+            limiter.process(mixBuffer, 0, mixBuffer, 0, n);
+            quantizer.quantize(mixBuffer, 0, out, offset + NUM_CHANNELS * done, NUM_CHANNELS * n);
+            done += n;
+        }
+    }
+
+    @Override
+    public void render(float[] out, int offset, int frames) {
+        for (int done = 0; done < frames; ) {
+            int n = Math.min(maxBlockFrames, frames - done);
+            mix(n);
+            limiter.process(mixBuffer, 0, out, offset + NUM_CHANNELS * done, n);
+            done += n;
+        }
+    }
+
+    private void mix(int frames) {
+        int samples = NUM_CHANNELS * frames;
+        Arrays.fill(mixBuffer, 0, samples, 0f);
+
+        Voice[] active = voices;
+        for (int v = 0; v < active.length; v++) {
+            Voice voice = active[v];
+            float[] gains = voice.channelGains;
+            float gain0 = gains[0];
+            float gain1 = gains[1];
+
+            if (voice.floatSource != null) {
+                voice.floatSource.render(voiceBuffer, 0, frames);
+                for (int i = 0; i < samples; i += NUM_CHANNELS) {
+                    mixBuffer[i] += voiceBuffer[i] * gain0;
+                    mixBuffer[i + 1] += voiceBuffer[i + 1] * gain1;
+                }
+            } else {
+                gain0 *= SHORT_TO_UNIT;
+                gain1 *= SHORT_TO_UNIT;
+                voice.source.render(shortVoiceBuffer, 0, frames);
+                for (int i = 0; i < samples; i += NUM_CHANNELS) {
+                    mixBuffer[i] += shortVoiceBuffer[i] * gain0;
+                    mixBuffer[i + 1] += shortVoiceBuffer[i + 1] * gain1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.frequencyplayer;
+
+// Streams a binaural beat: the carrier on channel 0 and the carrier plus the beat,
+// shifted by shiftDeg, on channel 1. Carrier and beat may glide along ramps, which are
+// evaluated every few samples while rendering, so a glide of any length uses no buffer.
+public class BinauralSource implements BlockSource, FloatBlockSource {
+
+    private static final int NUM_CHANNELS = 2;
+
+    // Frames rendered between two ramp evaluations, short enough for steps to be inaudible
+    static final int RAMP_BLOCK_FRAMES = 64;
+
+    private final int sampleRate;
+    private final Ramp frequency;
+    private final Ramp beat;
+    private final boolean isGliding;
+
+    private final SinSynth right;
+    private final SinSynth left;
+
+    // Frames rendered so far, the time base of the ramps
+    private long position;
+
+    public BinauralSource(int sampleRate, double frequency, double beat, double shiftDeg) {
+        this(sampleRate, frequency, beat, shiftDeg, OscillatorMode.DOUBLE);
+    }
+
+    public BinauralSource(int sampleRate, double frequency, double beat, double shiftDeg, OscillatorMode mode) {
+        this(sampleRate, Ramp.constant(frequency), Ramp.constant(beat), shiftDeg, mode);
+    }
+
+    public BinauralSource(int sampleRate, Ramp frequency, Ramp beat, double shiftDeg, OscillatorMode mode) {
+        if (frequency.getMin() <= 0) throw new IllegalArgumentException("Frequency must be positive.");
+        if (frequency.getMin() + beat.getMin() < 0 || frequency.getMax() + beat.getMax() >= sampleRate / 2.0) {
+            throw new IllegalArgumentException("Frequency plus beat must be in [0, sampleRate / 2).");
+        }
+
+        this.sampleRate = sampleRate;
+        this.frequency = frequency;
+        this.beat = beat;
+        this.isGliding = !frequency.isConstant() || !beat.isConstant();
+
+        right = new SinSynth(sampleRate, frequency.getStart(), 0.0, mode);
+        left = new SinSynth(sampleRate, frequency.getStart() + beat.getStart(), shiftDeg, mode);
+    }
+
+    @Override
+    public int getChannelCount() {
+        return NUM_CHANNELS;
+    }
+
+    @Override
+    public void render(short[] out, int offset, int frames) {
+        if (!isGliding) {
+            right.render(out, offset, frames, NUM_CHANNELS);
+            left.render(out, offset + 1, frames, NUM_CHANNELS);
+            position += frames;
+            return;
+        }
+
+        for (int done = 0; done < frames; ) {
+            int n = retune(frames - done);
+            right.render(out, offset + NUM_CHANNELS * done, n, NUM_CHANNELS);
+            left.render(out, offset + NUM_CHANNELS * done + 1, n, NUM_CHANNELS);
+            done += n;
+            position += n;
+        }
+    }
+
+    @Override
+    public void render(float[] out, int offset, int frames) {
+        if (!isGliding) {
+            right.render(out, offset, frames, NUM_CHANNELS);
+            left.render(out, offset + 1, frames, NUM_CHANNELS);
+            position += frames;
+            return;
+        }
+
+        for (int done = 0; done < frames; ) {
+            int n = retune(frames - done);
+            right.render(out, offset + NUM_CHANNELS * done, n, NUM_CHANNELS);
+            left.render(out, offset + NUM_CHANNELS * done + 1, n, NUM_CHANNELS);
+            done += n;
+            position += n;
+        }
+    }
+
+    // Steps both oscillators along the ramps, their phases stay continuous, and returns how many
+    // of the remaining frames to render before the next step. Steps fall on multiples of
+    // RAMP_BLOCK_FRAMES, so the output does not depend on the caller's block size.
+    private int retune(int remaining) {
+        int intoStep = (int) (position % RAMP_BLOCK_FRAMES);
+        double timeSec = (double) (position - intoStep) / sampleRate;
+        double carrier = frequency.valueAt(timeSec);
+        right.setFrequency(carrier);
+        left.setFrequency(carrier + beat.valueAt(timeSec));
+        return Math.min(RAMP_BLOCK_FRAMES - intoStep, remaining);
+    }
+
+    // Frames rendered since the start.
+    public long getPosition() {
+        return position;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public Ramp getFrequency() {
+        return frequency;
+    }
+
+    public Ramp getBeat() {
+        return beat;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.frequencyplayer;
+
+// Produces audio on demand in blocks of interleaved 16 bit samples.
+public interface BlockSource {
+
+    // Number of interleaved channels written for every frame.
+    int getChannelCount();
+
+    // Writes the next frames * getChannelCount() samples into out, starting at offset.
+    void render(short[] out, int offset, int frames);
+}
@@ -0,0 +1,117 @@
+package com.example.frequencyplayer;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Renders long buffers in fixed size chunks. Every chunk starts from the state the signal has
+// at its first frame, computed from the frame index alone, so chunks do not depend on each
+// other. The serial and the parallel renderer walk the same chunk grid and produce bit-identical
+// output, whatever the number of threads. Interrupting the calling thread cancels a render
+// between chunks.
+public class ChunkedRenderer {
+
+    public static final int DEFAULT_CHUNK_FRAMES = 1 << 15;
+
+    private static final ChunkedRenderer SERIAL = new ChunkedRenderer(null, DEFAULT_CHUNK_FRAMES);
+
+    private final ForkJoinPool pool;
+    private final int chunkFrames;
+
+    // Renders the chunks on the pool, or one after the other on the caller if pool is null.
+    public ChunkedRenderer(ForkJoinPool pool, int chunkFrames) {
+        if (chunkFrames <= 0) throw new IllegalArgumentException("Chunk size must be positive.");
+        this.pool = pool;
+        this.chunkFrames = chunkFrames;
+    }
+
+    public static ChunkedRenderer serial() {
+        return SERIAL;
+    }
+
+    public boolean isParallel() {
+        return pool != null;
+    }
+
+    public int getChunkFrames() {
+        return chunkFrames;
+    }
+
+    // Writes frames samples of a sine into out, stride apart from offset, like a SinSynth
+    // rendering them in one go. Each chunk gets its own oscillator skipped ahead to the chunk.
+    public void renderSine(final int sampleRate, final double frequency, final double shiftDeg,
+                           final OscillatorMode mode, final short[] out, final int offset, int frames, final int stride) {
+        run(new Chunk() {
+            @Override
+            public void render(int start, int length) {
+                SinSynth synth = new SinSynth(sampleRate, frequency, shiftDeg, mode);
+                synth.skip(start);
+                synth.render(out, offset + start * stride, length, stride);
+            }
+        }, frames);
+    }
+
+    // Thrown on the calling thread when it was interrupted during a render. The interrupt
+    // status is left set, so whatever runs next on the thread sees it too.
+    private static CancellationException cancelled() {
+        return new CancellationException("Render was interrupted.");
+    }
+
+    private interface Chunk {
+        void render(int start, int length);
+    }
+
+    private void run(Chunk chunk, int frames) {
+        Thread caller = Thread.currentThread();
+        int numChunks = (frames + chunkFrames - 1) / chunkFrames;
+        if (pool == null || numChunks <= 1) {
+            for (int c = 0; c < numChunks; c++) {
+                if (caller.isInterrupted()) throw cancelled();
+                renderChunk(chunk, c, frames);
+            }
+            return;
+        }
+
+        pool.invoke(new ChunkTask(chunk, caller, 0, numChunks, frames));
+        if (caller.isInterrupted()) throw cancelled();
+    }
+
+    private void renderChunk(Chunk chunk, int index, int frames) {
+        int start = index * chunkFrames;
+        chunk.render(start, Math.min(chunkFrames, frames - start));
+    }
+
+    // Splits the chunk range in halves until a single chunk is left.
+    private class ChunkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Chunk chunk;
+        private final Thread caller;
+        private final int from;
+        private final int to;
+        private final int frames;
+
+        ChunkTask(Chunk chunk, Thread caller, int from, int to, int frames) {
+            this.chunk = chunk;
+            this.caller = caller;
+            this.from = from;
+            this.to = to;
+            this.frames = frames;
+        }
+
+        @Override
+        protected void compute() {
+            // Pool threads are not interrupted, the caller is
+            if (caller.isInterrupted()) return;
+
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ChunkTask(chunk, caller, from, middle, frames),
+                        new ChunkTask(chunk, caller, middle, to, frames));
+            } else {
+                renderChunk(chunk, from, frames);
+            }
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.example.frequencyplayer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Rendered buffers persisted as wav files, so a beat played before is read back after a cold
+// start instead of being synthesized again. Files are named after a hash of their RenderKey.
+// An index file keeps their sizes in least recently used order, and the oldest files are
+// deleted to stay under the byte budget. Hits only update the order in memory, it reaches the
+// index with the next put or flush(). Wav files are read and written outside the lock, so a
+// long write does not hold up other threads. All methods are safe to call from any thread.
+public class DiskRenderCache {
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private static final String INDEX_FILE = "index";
+    private static final String INDEX_VERSION = "2"; // bumped whenever renders change, old files are dropped
+
+    private final File directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long sizeBytes;
+
+    // Changes to the entries, and the last change the index file holds
+    private long changeCount;
+    private final Object indexLock = new Object();
+    private long indexedChangeCount;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public DiskRenderCache(File directory, long maxBytes) throws IOException {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Cache size must be positive.");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Cannot create cache directory " + directory);
+        }
+
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        readIndex();
+    }
+
+    // Name of the file holding the buffer of the key, without extension.
+    public static String hash(RenderKey key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.toString().getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder(2 * digest.length);
+            for (byte b : digest) hex.append(String.format("%02x", b));
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Reads the cached buffer of the key, or returns null on a miss. Corrupt files are dropped.
+    public Pcm16Buffer get(RenderKey key) throws IOException {
+        String hash = hash(key);
+        synchronized (this) {
+            // get, unlike containsKey, moves the entry to the most recently used end
+            if (entries.get(hash) == null) {
+                missCount++;
+                return null;
+            }
+            changeCount++;
+        }
+
+        Pcm16Buffer buffer;
+        try {
+            buffer = read(fileFor(hash), key);
+        } catch (WavFileException e) {
+            synchronized (this) {
+                remove(hash);
+                missCount++;
+            }
+            writeIndex();
+            return null;
+        } catch (IOException e) {
+            // Evicted by another thread while being read
+            synchronized (this) {
+                if (entries.containsKey(hash)) throw e;
+                missCount++;
+            }
+            return null;
+        }
+
+        synchronized (this) {
+            hitCount++;
+        }
+        return buffer;
+    }
+
+    // Writes the buffer of the key and evicts least recently used files until the cache fits.
+    // Buffers larger than the whole cache are not stored.
+    public void put(RenderKey key, Pcm16Buffer buffer) throws IOException {
+        long bytes = WavFile.getFileSize(buffer.getNumChannels(), buffer.getNumFrames(), Binaural.BIT_DEPTH);
+        if (bytes > maxBytes) return;
+
+        String hash = hash(key);
+        File file = fileFor(hash);
+
+        // Write next to the final name first so a crash never leaves a truncated entry behind.
+        // Threads putting the same key each write their own temp file.
+        File temp = File.createTempFile(hash, ".tmp", directory);
+        try {
+            write(temp, key, buffer);
+        } catch (WavFileException e) {
+            temp.delete();
+            throw new IOException(e);
+        }
+
+        synchronized (this) {
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                throw new IOException("Cannot move " + temp + " to " + file);
+            }
+
+            Long previous = entries.put(hash, bytes);
+            if (previous != null) sizeBytes -= previous;
+            sizeBytes += bytes;
+
+            Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+            while (sizeBytes > maxBytes) {
+                Map.Entry<String, Long> entry = eldest.next();
+                sizeBytes -= entry.getValue();
+                fileFor(entry.getKey()).delete();
+                eldest.remove();
+                evictionCount++;
+            }
+            changeCount++;
+        }
+
+        writeIndex();
+    }
+
+    // Writes the recency of hits since the last put to the index file, if there were any.
+    public void flush() throws IOException {
+        writeIndex();
+    }
+
+    public synchronized boolean contains(RenderKey key) {
+        return entries.containsKey(hash(key));
+    }
+
+    public void clear() throws IOException {
+        synchronized (this) {
+            for (String hash : entries.keySet()) fileFor(hash).delete();
+            entries.clear();
+            sizeBytes = 0;
+            changeCount++;
+        }
+        writeIndex();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("DiskRenderCache[%d entries, %d/%d bytes, %d hits, %d misses, %d evictions]",
+                entries.size(), sizeBytes, maxBytes, hitCount, missCount, evictionCount);
+    }
+
+    private File fileFor(String hash) {
+        return new File(directory, hash + Binaural.FILE_EXTENSION);
+    }
+
+    private void remove(String hash) {
+        Long bytes = entries.remove(hash);
+        if (bytes != null) sizeBytes -= bytes;
+        fileFor(hash).delete();
+        changeCount++;
+    }
+
+    private static void write(File file, RenderKey key, Pcm16Buffer buffer) throws IOException, WavFileException {
+        int numFrames = buffer.getNumFrames();
+        WavFile wavFile = WavFile.newWavFile(file, buffer.getNumChannels(), numFrames, Binaural.BIT_DEPTH, key.getSampleRate());
+        try {
+            wavFile.writeFrames(buffer.getSamples(), numFrames);
+        } finally {
+            wavFile.close();
+        }
+    }
+
+    private static Pcm16Buffer read(File file, RenderKey key) throws IOException, WavFileException {
+        WavFile wavFile = WavFile.openMappedWavFile(file);
+        try {
+            if (wavFile.getNumChannels() != Binaural.NUM_CHANNELS ||
+                    wavFile.getValidBits() != Binaural.BIT_DEPTH ||
+                    wavFile.getSampleRate() != key.getSampleRate()) {
+                throw new WavFileException("Cached file does not match " + key);
+            }
+
+            int numFrames = (int) wavFile.getNumFrames();
+            short[] samples = new short[Binaural.NUM_CHANNELS * numFrames];
+            if (wavFile.readFrames(samples, numFrames) != numFrames) {
+                throw new WavFileException("Cached file is truncated");
+            }
+
+            return new Pcm16Buffer(samples, Binaural.NUM_CHANNELS);
+        } finally {
+            wavFile.close();
+        }
+    }
+
+    // Index layout: a version line, then one "hash size" line per entry, least recently used first.
+    // Entries whose file went missing are dropped, as are files the index does not know about.
+    private void readIndex() throws IOException {
+        File index = new File(directory, INDEX_FILE);
+        if (index.isFile()) {
+            BufferedReader reader = new BufferedReader(new FileReader(index));
+            try {
+                if (INDEX_VERSION.equals(reader.readLine())) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        String[] fields = line.split(" ");
+                        if (fields.length != 2) continue;
+
+                        long bytes;
+                        try {
+                            bytes = Long.parseLong(fields[1]);
+                        } catch (NumberFormatException e) {
+                            continue;
+                        }
+                        if (fileFor(fields[0]).length() != bytes) continue;
+
+                        entries.put(fields[0], bytes);
+                        sizeBytes += bytes;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        }
+
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                if (name.equals(INDEX_FILE)) continue;
+
+                String hash = name.endsWith(Binaural.FILE_EXTENSION)
+                        ? name.substring(0, name.length() - Binaural.FILE_EXTENSION.length())
+                        : null;
+                if (hash == null || !entries.containsKey(hash)) file.delete();
+            }
+        }
+    }
+
+    // Writes a snapshot of the entries taken under the lock. Snapshots older than the file are
+    // not written, so concurrent writers never roll the index back.
+    private void writeIndex() throws IOException {
+        List<String> lines;
+        long change;
+        synchronized (this) {
+            lines = new ArrayList<String>(entries.size());
+            for (Map.Entry<String, Long> entry : entries.entrySet()) {
+                lines.add(entry.getKey() + " " + entry.getValue());
+            }
+            change = changeCount;
+        }
+
+        synchronized (indexLock) {
+            if (change <= indexedChangeCount) return;
+
+            File index = new File(directory, INDEX_FILE);
+            File temp = new File(directory, INDEX_FILE + ".tmp");
+
+            Writer writer = new FileWriter(temp);
+            try {
+                writer.write(INDEX_VERSION);
+                writer.write('\n');
+                for (String line : lines) {
+                    writer.write(line + "\n");
+                }
+            } finally {
+                writer.close();
+            }
+
+            if (!temp.renameTo(index)) {
+                throw new IOException("Cannot move " + temp + " to " + index);
+            }
+            indexedChangeCount = change;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.frequencyplayer;
+
+import android.util.Log;
+
+import java.util.concurrent.CancellationException;
+
+// Runs audio engine requests one at a time on a single thread, newest wins. A request submitted
+// while another waits replaces it, so a burst of edits costs one render. A request in flight
+// when a newer one arrives is interrupted; renders check the interrupt between chunks and stop
+// with a CancellationException.
+public class EngineExecutor {
+
+    private final Thread thread;
+
+    private Runnable pending;
+    private boolean running;
+    private boolean shutdown;
+
+    private long submittedCount;
+    private long completedCount;
+    private long coalescedCount;
+    private long cancelledCount;
+
+    public EngineExecutor(String name) {
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                loop();
+            }
+        }, name);
+        thread.start();
+    }
+
+    // Queues the task in place of any task still waiting, and interrupts the one in flight.
+    public synchronized void submit(Runnable task) {
+        if (shutdown) throw new IllegalStateException("Executor was shut down.");
+
+        submittedCount++;
+        if (pending != null) coalescedCount++;
+        if (running) thread.interrupt();
+
+        pending = task;
+        notifyAll();
+    }
+
+    // Drops the waiting task, interrupts the one in flight and lets the thread end.
+    public synchronized void shutdown() {
+        shutdown = true;
+        pending = null;
+        if (running) thread.interrupt();
+        notifyAll();
+    }
+
+    // Returns true if the thread ended within the timeout.
+    public boolean awaitTermination(long timeoutMs) throws InterruptedException {
+        thread.join(timeoutMs);
+        return !thread.isAlive();
+    }
+
+    // True on the engine thread itself.
+    public boolean isEngineThread() {
+        return Thread.currentThread() == thread;
+    }
+
+    public synchronized long getSubmittedCount() {
+        return submittedCount;
+    }
+
+    public synchronized long getCompletedCount() {
+        return completedCount;
+    }
+
+    // Tasks replaced by a newer one before they started.
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    // Tasks that stopped with a CancellationException after a newer one interrupted them.
+    public synchronized long getCancelledCount() {
+        return cancelledCount;
+    }
+
+    private void loop() {
+        while (true) {
+            Runnable task;
+            synchronized (this) {
+                running = false;
+
+                // Drop an interrupt meant for the task that just ended
+                Thread.interrupted();
+
+                while (pending == null && !shutdown) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // Only tasks are interrupted, keep waiting
+                    }
+                }
+                if (pending == null) return;
+
+                task = pending;
+                pending = null;
+                running = true;
+            }
+
+            try {
+                task.run();
+                synchronized (this) {
+                    completedCount++;
+                }
+            } catch (CancellationException e) {
+                synchronized (this) {
+                    cancelledCount++;
+                }
+                Log.d("engine", "Superseded: " + e.getMessage());
+            } catch (RuntimeException e) {
+                // Keep the engine alive for the next request
+                e.printStackTrace();
+                Log.d("engine", "Request failed: " + e);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.frequencyplayer;
+
+// Produces audio on demand in blocks of interleaved float samples, full scale is 1. Sources
+// that can render floats are mixed without a round trip through 16 bit, so the signal is
+// quantized only once, where it leaves for the sink.
+public interface FloatBlockSource {
+
+    // Number of interleaved channels written for every frame.
+    int getChannelCount();
+
+    // Writes the next frames * getChannelCount() samples into out, starting at offset.
+    void render(float[] out, int offset, int frames);
+}
@@ -0,0 +1,77 @@
+package com.example.frequencyplayer;
+
+// Streams an isochronic beat: one carrier switched on and off beat times per second, the same
+// on both channels. The gate is open for half of each beat period and opens and closes along
+// raised cosine edges, so switching never clicks.
+public class IsochronicSource implements BlockSource {
+
+    private static final int NUM_CHANNELS = 2;
+
+    // Fraction of the beat period the gate is open
+    static final double DUTY_CYCLE = 0.5;
+
+    // Longest opening or closing edge. Fast beats get shorter edges, at most half the open time.
+    static final double MAX_EDGE_SEC = 0.01;
+
+    private final SinSynth carrier;
+    private final double gateIncrement;
+    private final double edgeCycles;
+    private double gatePhase;
+
+    public IsochronicSource(int sampleRate, double frequency, double beat, double shiftDeg) {
+        this(sampleRate, frequency, beat, shiftDeg, OscillatorMode.DOUBLE);
+    }
+
+    // The shift moves the gate, the carrier starts at zero phase. A beat of 0 leaves the gate open.
+    public IsochronicSource(int sampleRate, double frequency, double beat, double shiftDeg, OscillatorMode mode) {
+        if (frequency <= 0) throw new IllegalArgumentException("Frequency must be positive.");
+        if (beat < 0 || beat >= sampleRate / 2.0) throw new IllegalArgumentException("Beat must be in [0, sampleRate / 2).");
+
+        carrier = new SinSynth(sampleRate, frequency, 0.0, mode);
+        gateIncrement = beat / sampleRate;
+        edgeCycles = Math.min(MAX_EDGE_SEC * beat, DUTY_CYCLE / 2);
+
+        double shift = shiftDeg / 360.0;
+        gatePhase = shift - Math.floor(shift);
+    }
+
+    @Override
+    public int getChannelCount() {
+        return NUM_CHANNELS;
+    }
+
+    @Override
+    public void render(short[] out, int offset, int frames) {
+        carrier.render(out, offset, frames, NUM_CHANNELS);
+        if (gateIncrement == 0) {
+            copyToSecondChannel(out, offset, frames);
+            return;
+        }
+
+        double p = gatePhase;
+        double inc = gateIncrement;
+        for (int i = offset, end = offset + NUM_CHANNELS * frames; i < end; i += NUM_CHANNELS) {
+            short sample = (short) Math.round(out[i] * gain(p));
+            out[i] = sample;
+            out[i + 1] = sample;
+
+            p += inc;
+            if (p >= 1.0) p -= 1.0;
+        }
+        gatePhase = p;
+    }
+
+    // Gain of the gate at phase p of the beat period.
+    private double gain(double p) {
+        if (p >= DUTY_CYCLE) return 0.0;
+        if (p < edgeCycles) return 0.5 - 0.5 * Math.cos(Math.PI * p / edgeCycles);
+        if (p > DUTY_CYCLE - edgeCycles) return 0.5 - 0.5 * Math.cos(Math.PI * (DUTY_CYCLE - p) / edgeCycles);
+        return 1.0;
+    }
+
+    private static void copyToSecondChannel(short[] out, int offset, int frames) {
+        for (int i = offset, end = offset + NUM_CHANNELS * frames; i < end; i += NUM_CHANNELS) {
+            out[i + 1] = out[i];
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.frequencyplayer;
+
+// Length of a seamless stereo loop and the carrier frequencies that close exactly within it.
+public final class LoopPlan {
+
+    private final int sampleRate;
+    private final int numFrames;
+    private final long rightCycles;
+    private final long leftCycles;
+    private final double phaseError;
+
+    LoopPlan(int sampleRate, int numFrames, long rightCycles, long leftCycles, double phaseError) {
+        this.sampleRate = sampleRate;
+        this.numFrames = numFrames;
+        this.rightCycles = rightCycles;
+        this.leftCycles = leftCycles;
+        this.phaseError = phaseError;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getNumFrames() {
+        return numFrames;
+    }
+
+    public double getDurationSec() {
+        return (double) numFrames / sampleRate;
+    }
+
+    // Whole carrier periods on channel 0 within the loop
+    public long getRightCycles() {
+        return rightCycles;
+    }
+
+    // Whole periods of carrier plus beat on channel 1 within the loop
+    public long getLeftCycles() {
+        return leftCycles;
+    }
+
+    // Whole beat periods within the loop
+    public long getBeatCycles() {
+        return leftCycles - rightCycles;
+    }
+
+    // Frequencies snapped to the loop so every channel closes with no phase jump at the seam
+    public double getRightFrequency() {
+        return (double) rightCycles * sampleRate / numFrames;
+    }
+
+    public double getLeftFrequency() {
+        return (double) leftCycles * sampleRate / numFrames;
+    }
+
+    public double getBeat() {
+        return (double) getBeatCycles() * sampleRate / numFrames;
+    }
+
+    // Largest phase mismatch in cycles the requested frequencies would have had at the seam
+    public double getPhaseError() {
+        return phaseError;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LoopPlan[%d frames, %d/%d cycles, error %.5f]",
+                numFrames, rightCycles, leftCycles, phaseError);
+    }
+}
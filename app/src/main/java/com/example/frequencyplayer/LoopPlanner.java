@@ -0,0 +1,97 @@
+package com.example.frequencyplayer;
+
+// Finds the shortest loop in which both carriers and the beat between them complete whole
+// periods, so a looped buffer keeps the left/right phase relationship forever.
+public class LoopPlanner {
+
+    // Phase mismatch allowed at the seam before snapping, in cycles (0.01 cycles = 3.6 degrees)
+    public static final double DEFAULT_TOLERANCE_CYCLES = 0.01;
+    public static final double DEFAULT_MAX_DURATION_SEC = 60;
+
+    private LoopPlanner() {
+    }
+
+    public static LoopPlan plan(int sampleRate, double frequency, double beat) {
+        return plan(sampleRate, frequency, beat, DEFAULT_TOLERANCE_CYCLES, DEFAULT_MAX_DURATION_SEC);
+    }
+
+    // Returns the shortest loop within maxDurationSec whose phase error is within toleranceCycles
+    // for the carrier, the carrier plus beat and the beat. If none exists, the loop with the
+    // smallest error is returned instead.
+    public static LoopPlan plan(int sampleRate, double frequency, double beat,
+                                double toleranceCycles, double maxDurationSec) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("Sample rate must be positive.");
+        if (frequency <= 0) throw new IllegalArgumentException("Frequency must be positive.");
+        if (beat < 0) throw new IllegalArgumentException("Beat must not be negative.");
+        if (toleranceCycles < 0 || toleranceCycles >= 0.5) {
+            throw new IllegalArgumentException("Tolerance must be in [0, 0.5) cycles.");
+        }
+
+        double rightPerFrame = frequency / sampleRate;
+        double leftPerFrame = (frequency + beat) / sampleRate;
+        double beatPerFrame = beat / sampleRate;
+        int maxFrames = (int) Math.min(Integer.MAX_VALUE / 2, Math.floor(maxDurationSec * sampleRate));
+
+        // Every channel must complete at least one whole period
+        int minFrames = (int) Math.ceil((1 - toleranceCycles) / rightPerFrame);
+        if (beat > 0) minFrames = Math.max(minFrames, (int) Math.ceil((1 - toleranceCycles) / beatPerFrame));
+        minFrames = Math.max(1, minFrames);
+
+        int bestFrames = 0;
+        double bestError = Double.MAX_VALUE;
+
+        if (beat > 0) {
+            // The beat closes only near whole multiples of its period, so only those windows of
+            // frames need to be searched: k - tol <= n * beat / sampleRate <= k + tol
+            for (long k = 1; ; k++) {
+                int first = (int) Math.max(minFrames, Math.ceil((k - toleranceCycles) / beatPerFrame));
+                int last = (int) Math.min(maxFrames, Math.floor((k + toleranceCycles) / beatPerFrame));
+                if (first > maxFrames) break;
+
+                for (int n = first; n <= last; n++) {
+                    double error = maxError(n, rightPerFrame, leftPerFrame, beatPerFrame);
+                    if (error <= toleranceCycles) {
+                        return createPlan(sampleRate, n, rightPerFrame, leftPerFrame, error);
+                    }
+                    if (error < bestError) {
+                        bestError = error;
+                        bestFrames = n;
+                    }
+                }
+            }
+        } else {
+            for (int n = minFrames; n <= maxFrames; n++) {
+                double error = maxError(n, rightPerFrame, leftPerFrame, beatPerFrame);
+                if (error <= toleranceCycles) {
+                    return createPlan(sampleRate, n, rightPerFrame, leftPerFrame, error);
+                }
+                if (error < bestError) {
+                    bestError = error;
+                    bestFrames = n;
+                }
+            }
+        }
+
+        // Nothing within tolerance, settle for the closest loop found
+        if (bestFrames == 0) bestFrames = minFrames;
+        return createPlan(sampleRate, bestFrames, rightPerFrame, leftPerFrame,
+                maxError(bestFrames, rightPerFrame, leftPerFrame, beatPerFrame));
+    }
+
+    private static LoopPlan createPlan(int sampleRate, int numFrames, double rightPerFrame,
+                                       double leftPerFrame, double error) {
+        long rightCycles = Math.max(1, Math.round(numFrames * rightPerFrame));
+        long leftCycles = Math.max(1, Math.round(numFrames * leftPerFrame));
+        return new LoopPlan(sampleRate, numFrames, rightCycles, leftCycles, error);
+    }
+
+    private static double maxError(int numFrames, double rightPerFrame, double leftPerFrame, double beatPerFrame) {
+        double error = distanceToWhole(numFrames * rightPerFrame);
+        error = Math.max(error, distanceToWhole(numFrames * leftPerFrame));
+        return Math.max(error, distanceToWhole(numFrames * beatPerFrame));
+    }
+
+    private static double distanceToWhole(double cycles) {
+        return Math.abs(cycles - Math.rint(cycles));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.frequencyplayer;
+
+// Plays one stored loop of interleaved samples as if it were repeated end to end forever, so
+// a loop of any playing time only costs the memory of the loop itself. Blocks are filled with
+// System.arraycopy, one copy per wraparound, instead of an index computation per sample.
+public class LoopedBuffer implements BlockSource {
+
+    private final short[] loop;
+    private final int numChannels;
+    private final int loopFrames;
+
+    // Frame of the loop the next render starts at
+    private int position;
+
+    // Plays the array itself, it is not copied.
+    public LoopedBuffer(short[] loop, int numChannels) {
+        if (numChannels <= 0) throw new IllegalArgumentException("Channel count must be positive.");
+        if (loop.length == 0 || loop.length % numChannels != 0) {
+            throw new IllegalArgumentException("Loop must hold a positive whole number of frames.");
+        }
+
+        this.loop = loop;
+        this.numChannels = numChannels;
+        this.loopFrames = loop.length / numChannels;
+    }
+
+    @Override
+    public int getChannelCount() {
+        return numChannels;
+    }
+
+    public int getLoopFrames() {
+        return loopFrames;
+    }
+
+    // Frame of the loop the next render starts at.
+    public int getPosition() {
+        return position;
+    }
+
+    // Moves to a frame of the endless repetition, wrapped into the loop.
+    public void seek(long frame) {
+        if (frame < 0) throw new IllegalArgumentException("Frame must not be negative.");
+        position = (int) (frame % loopFrames);
+    }
+
+    @Override
+    public void render(short[] out, int offset, int frames) {
+        read(position, out, offset, frames);
+        position = (int) ((position + (long) frames) % loopFrames);
+    }
+
+    // Copies frames starting at the given frame of the endless repetition into out, without
+    // moving the position. Safe to call from several threads.
+    public void read(long frame, short[] out, int offset, int frames) {
+        if (frame < 0) throw new IllegalArgumentException("Frame must not be negative.");
+
+        int start = (int) (frame % loopFrames);
+        Util.repeat(loop, loop.length, numChannels * start, out, offset, numChannels * frames);
+    }
+}
@@ -2,9 +2,9 @@ package com.example.frequencyplayer;
 
 import androidx.appcompat.app.AppCompatActivity;
 
-import android.media.AudioAttributes;
+import android.app.ActivityManager;
+import android.content.Context;
 import android.media.AudioManager;
-import android.media.SoundPool;
 import android.os.Bundle;
 import android.util.Log;
 import android.util.Pair;
@@ -12,6 +12,9 @@ import android.view.View;
 import android.widget.EditText;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 public class MainActivity extends AppCompatActivity {
 
@@ -20,21 +23,28 @@ public class MainActivity extends AppCompatActivity {
     private static final double DEFAULT_SHIFT = 180.0;
     private static final double DEFAULT_FREQUENCY = Binaural.CADUCEUS_FREQUENCIES.get(196); // 49.96882653 Hz
 
-    private static final int LOADING_DELAY_MS = 30;
+    private static final int ENGINE_SHUTDOWN_TIMEOUT_MS = 1000;
+    private static final int RENDER_SHUTDOWN_TIMEOUT_MS = 1000;
 
-    private static final String CUSTOM_CLIP_BASENAME = "customBinauralSound";
-    private static final String CUSTOM_RIGHT_CLIP_SUFFIX = "R_";
-    private static final String CUSTOM_LEFT_CLIP_SUFFIX = "L_";
-    private static final double LOOPED_SAMPLE_DURATION_SEC = 1;
-    private static final int MAX_STREAMS = 6;
+    private static final String RENDER_CACHE_DIR = "renders";
 
-    private static SoundPool soundPool;
-    private static boolean isRightSoundReady;
-    private static boolean isLeftSoundReady;
-    private static int customRightSoundId;
-    private static int customLeftSoundId;
-    private static int customRightSoundStreamId;
-    private static int customLeftSoundStreamId;
+    // A streamed beat is rendered in float and quantized once on the way to the track, with TPDF dither
+    private static final boolean DITHER_OUTPUT = true;
+
+    // Render the preset loops in the background once the disk cache is open, so presets play at once
+    private static final boolean WARM_UP_PRESETS = true;
+
+    private static PlaybackEngine playbackEngine;
+
+    // Runs play and stop requests in order, newest wins
+    private static EngineExecutor engineExecutor;
+    private static volatile PresetWarmup presetWarmup;
+
+    // Render threads of this activity, shut down with it
+    private static ForkJoinPool renderPool;
+
+    // Only touched on the engine thread
+    private static boolean diskCacheOpened;
 
 
     // EditTexts
@@ -60,33 +70,31 @@ public class MainActivity extends AppCompatActivity {
             Log.d("BuffSize and SampleRate", "Size :" + size + " & Rate: " + rate);
 
             Binaural.setSampleRate(Integer.parseInt(rate));
-        }
-        // Initialize audio attributes
-        {
-            AudioAttributes audioAttributes = new AudioAttributes.Builder()
-                    .setUsage(AudioAttributes.USAGE_MEDIA)
-                    .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
-                    .build();
-
-            soundPool = new SoundPool.Builder()
-                    .setMaxStreams(MAX_STREAMS)
-                    .setAudioAttributes(audioAttributes)
-                    .build();
+
+            // Low end devices render with the integer wavetable oscillator
+            ActivityManager activityManager = (ActivityManager) getSystemService(ACTIVITY_SERVICE);
+            if (activityManager.isLowRamDevice()) {
+                Binaural.setOscillatorMode(OscillatorMode.FIXED_Q15);
+            }
+
+            int framesPerBuffer = Integer.parseInt(size);
+            playbackEngine = new StreamingPlaybackEngine(
+                    new AudioTrackSink(Binaural.getSampleRate(), framesPerBuffer), framesPerBuffer);
         }
 
-        // Set the on load listener to notify when the sounds are ready
-        soundPool.setOnLoadCompleteListener(new SoundPool.OnLoadCompleteListener() {
-            @Override
-            public void onLoadComplete(SoundPool soundPool, int sampleId, int status) {
-                if (status != 0) {
-                    throw new IllegalStateException(String.format("Failed to load sound with id %d.", sampleId));
-                }
+        // Render long loops on every core
+        renderPool = new ForkJoinPool();
+        Binaural.setRenderPool(renderPool);
 
-                if (sampleId == customRightSoundId) {
-                    isRightSoundReady = true;
-                } else if (sampleId == customLeftSoundId) {
-                    isLeftSoundReady = true;
-                }
+        engineExecutor = new EngineExecutor("AudioEngine");
+
+        // Open the disk cache off the UI thread. A play request may replace this one before it
+        // runs, so every play request prepares the engine first as well.
+        final Context context = getApplicationContext();
+        engineExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                prepareEngine(context);
             }
         });
 
@@ -100,13 +108,6 @@ public class MainActivity extends AppCompatActivity {
         et_beat = findViewById(R.id.et_beat);
         et_shift = findViewById(R.id.et_shift);
 
-        customRightSoundId = 0;
-        customLeftSoundId = 0;
-        customRightSoundStreamId = 0;
-        customLeftSoundStreamId = 0;
-
-        isRightSoundReady = false;
-        isLeftSoundReady = false;
     }
 
     private static Pair<Double, Boolean> validateValue(String str){
@@ -126,6 +127,7 @@ public class MainActivity extends AppCompatActivity {
     }
 
     public void bt_play_onClick(View view) {
+        final long clickNanos = System.nanoTime();
 
         // Get the string from the EditText objects
         String frequencyStr = et_frequency.getText().toString();
@@ -145,64 +147,49 @@ public class MainActivity extends AppCompatActivity {
         // Debug logging info
         Log.d("appActivity", String.format("Frequency: %.5f Beat: %.5f Shift: %.5f", frequency, beat, shift));
 
-        // Set the audio channels from the sound pool to not ready
-        isLeftSoundReady = false;
-        isRightSoundReady = false;
-
-        // Create runnable process for multithreading
-        Runnable composeAndPlay = new Runnable() {
+        // Play the cached loop of the beat if there is one, otherwise stream it block by block
+        final Context context = getApplicationContext();
+        engineExecutor.submit(new Runnable() {
             @Override
             public void run() {
-
-                // Generate the wav audio buffers
-                Binaural.generateBuffers(frequency, beat, shift, LOOPED_SAMPLE_DURATION_SEC);
-
-                // Create new .wav files from the PCM data
-                File[] wavFiles = Binaural.writeWaveFiles(CUSTOM_CLIP_BASENAME + CUSTOM_RIGHT_CLIP_SUFFIX, CUSTOM_CLIP_BASENAME + CUSTOM_LEFT_CLIP_SUFFIX, getApplicationContext());
-
-                // Stop the previous sound
-                stopAndUnloadsound();
-
-                // Load cache file into sound pool
-                Log.d("appActivity", "Loading file \""+ wavFiles[0].getAbsolutePath() + "\".");
-                customRightSoundId = soundPool.load(wavFiles[0].getAbsolutePath() ,1);
-
-                Log.d("appActivity", "Loading file \""+ wavFiles[1].getAbsolutePath() + "\".");
-                customLeftSoundId = soundPool.load(wavFiles[1].getAbsolutePath() ,1);
-
-                // Wait for the sounds to load
-                {
-                    int sleptFor = 0;
-                    while (!(isRightSoundReady && isLeftSoundReady)) {
-                        try {
-                            Thread.sleep(LOADING_DELAY_MS);
-
-                        } catch (InterruptedException e) {
-                            Thread.currentThread().interrupt();
-                        }
-                        sleptFor += LOADING_DELAY_MS;
-                    }
-                    Log.d("appActivity", String.format("Slept for %d ms.", sleptFor));
-                }
-
-                // Delete the cache files
-                for (File wavFile : wavFiles){
-                    if (!wavFile.delete()){
-                        throw new IllegalStateException(
-                                String.format("Failed to deleted cache file \"%s\".", wavFile.getAbsolutePath()));
-                    }
+                prepareEngine(context);
+
+                BlockSource source = Binaural.getCachedLoopBuffer(frequency, beat, shift);
+                if (source == null) {
+                    // Stream the exact beat right away, the loop renders for the next play
+                    source = new QuantizedSource(new BinauralSource(Binaural.getSampleRate(), frequency, beat, shift,
+                            Binaural.getOscillatorMode()), DITHER_OUTPUT);
+                    Binaural.prerenderLoop(frequency, beat, shift, renderPool);
                 }
+                playbackEngine.play(source);
+                Log.d("appActivity", String.format("*PLAY* Started in %.1f ms.", (System.nanoTime() - clickNanos) / 1e6));
+            }
+        });
+    }
 
-                // Play the sound in a loop
-                customRightSoundStreamId = soundPool.play(customRightSoundId, 1, 1, MAX_STREAMS, -1, 1);
-                customLeftSoundStreamId = soundPool.play(customLeftSoundId, 1, 1, MAX_STREAMS, -1, 1);
+    // Opens the disk cache and starts the preset warm-up on the engine thread. Does nothing once done.
+    private static void prepareEngine(Context context){
+        openDiskCache(context);
 
-                Log.d("appActivity", "*PLAY*");
-            }
-        };
+        // A warm-up cancelled by an earlier activity starts over, cached presets are quick hits
+        if (WARM_UP_PRESETS && (presetWarmup == null || presetWarmup.isCancelled())) {
+            presetWarmup = new PresetWarmup(PresetWarmup.presetKeys(DEFAULT_BEAT, DEFAULT_SHIFT), renderPool);
+            presetWarmup.start(null);
+        }
+    }
 
-        Thread thread = new Thread(composeAndPlay);
-        thread.start();
+    // Keeps rendered loops across app starts, once per process.
+    private static void openDiskCache(Context context){
+        if (diskCacheOpened) return;
+        diskCacheOpened = true;
+
+        try {
+            Binaural.setDiskCache(new DiskRenderCache(new File(context.getCacheDir(), RENDER_CACHE_DIR),
+                    DiskRenderCache.DEFAULT_MAX_BYTES));
+        } catch (IOException e) {
+            e.printStackTrace();
+            Log.d("appActivity", "Disk render cache unavailable.");
+        }
     }
 
     private void resetDefaultValuesInEditTexts(){
@@ -215,28 +202,61 @@ public class MainActivity extends AppCompatActivity {
 
     public void bt_default_onClick(View view) {
         // Stop the audio
-        stopAndUnloadsound();
+        submitStop();
         resetDefaultValuesInEditTexts();
     }
 
-    private static void stopAndUnloadsound(){
-        // Stop
-        soundPool.stop(customRightSoundStreamId);
-        soundPool.stop(customLeftSoundStreamId);
+    // Stops on the engine thread, so it also supersedes a play request still being rendered.
+    private static void submitStop(){
+        engineExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                playbackEngine.stop();
+                Log.d("appActivity", "*STOP*");
+            }
+        });
+    }
 
-        // Unload
-        soundPool.unload(customRightSoundId);
-        soundPool.unload(customLeftSoundId);
+    public void bt_stop_onClick(View view) {
+        submitStop();
+    }
 
+    @Override
+    protected void onDestroy() {
+        if (presetWarmup != null) {
+            presetWarmup.cancel();
+        }
 
-        isRightSoundReady = false;
-        isLeftSoundReady = false;
+        // Let the engine thread leave the track before releasing it
+        engineExecutor.shutdown();
+        try {
+            if (!engineExecutor.awaitTermination(ENGINE_SHUTDOWN_TIMEOUT_MS)) {
+                Log.d("appActivity", "Audio engine did not stop in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
 
-        Log.d("appActivity", "*STOP*");
-    }
+        playbackEngine.release();
 
-    public void bt_stop_onClick(View view) {
-        stopAndUnloadsound();
+        // Renders started from now on run serially. Those in flight still split work onto the
+        // pool, so it only shuts down once they are done.
+        Binaural.setRenderPool(null);
+        if (!renderPool.awaitQuiescence(RENDER_SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            Log.d("appActivity", "Renders did not finish in time.");
+        }
+        renderPool.shutdown();
+
+        // Hits only keep their recency in memory until the index is written
+        DiskRenderCache disk = Binaural.getDiskCache();
+        if (disk != null) {
+            try {
+                disk.flush();
+            } catch (IOException e) {
+                Log.d("appActivity", "Error writing the render cache index.");
+            }
+        }
+        super.onDestroy();
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.example.frequencyplayer;
+
+// Streams a monaural beat: the carrier and the carrier plus the beat, shifted by shiftDeg,
+// summed at half amplitude each and played on both channels. The beat is in the signal
+// itself, so it works without headphones.
+public class MonauralSource implements BlockSource {
+
+    private static final int NUM_CHANNELS = 2;
+
+    private final SinSynth lower;
+    private final SinSynth upper;
+
+    public MonauralSource(int sampleRate, double frequency, double beat, double shiftDeg) {
+        this(sampleRate, frequency, beat, shiftDeg, OscillatorMode.DOUBLE);
+    }
+
+    public MonauralSource(int sampleRate, double frequency, double beat, double shiftDeg, OscillatorMode mode) {
+        if (frequency <= 0) throw new IllegalArgumentException("Frequency must be positive.");
+
+        lower = new SinSynth(sampleRate, frequency, 0.0, mode);
+        upper = new SinSynth(sampleRate, frequency + beat, shiftDeg, mode);
+
+        // Two halves cannot sum past full scale
+        lower.setAmplitude(0.5);
+        upper.setAmplitude(0.5);
+    }
+
+    @Override
+    public int getChannelCount() {
+        return NUM_CHANNELS;
+    }
+
+    @Override
+    public void render(short[] out, int offset, int frames) {
+        // Render each tone into its own channel, then sum them in place
+        lower.render(out, offset, frames, NUM_CHANNELS);
+        upper.render(out, offset + 1, frames, NUM_CHANNELS);
+
+        for (int i = offset, end = offset + NUM_CHANNELS * frames; i < end; i += NUM_CHANNELS) {
+            short sum = (short) (out[i] + out[i + 1]);
+            out[i] = sum;
+            out[i + 1] = sum;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.frequencyplayer;
+
+// Spectra a NoiseSource can render.
+public enum NoiseColor {
+    // Flat spectrum, equal energy per Hz.
+    WHITE,
+    // Falls 3 dB per octave, equal energy per octave. Voss-McCartney rows of held random values.
+    PINK,
+    // Falls 6 dB per octave. White noise through a leaky integrator.
+    BROWN
+}
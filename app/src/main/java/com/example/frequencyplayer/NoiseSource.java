@@ -0,0 +1,167 @@
+package com.example.frequencyplayer;
+
+// Streams white, pink or brown noise, for example as a masking bed in a BinauralMixer. Every
+// channel has its own generator, so channels are uncorrelated. The output only depends on the
+// seed, not on the block sizes pulled, so noise renders can be cached and compared.
+public class NoiseSource implements BlockSource {
+
+    private static final float FULL_SCALE = 32767f;
+
+    // Voss-McCartney rows, row k changes every 2^k samples
+    private static final int PINK_ROWS = 16;
+
+    // Brings the colors to a similar loudness, peaks past full scale are clipped
+    private static final float PINK_GAIN = 3f / (PINK_ROWS + 1);
+    private static final float BROWN_STEP = 0.02f;
+    private static final float BROWN_LEAK = 1f / 1.02f;
+    private static final float BROWN_GAIN = 3.5f;
+
+    private final NoiseColor color;
+    private final int numChannels;
+    private final long seed;
+    private float amplitude;
+
+    private final XorShiftRandom[] random;
+
+    // PINK state per channel: held row values, their sum and a sample counter
+    private final float[][] pinkRows;
+    private final float[] pinkSum;
+    private final int[] pinkCounter;
+
+    // BROWN state per channel
+    private final float[] brown;
+
+    public NoiseSource(NoiseColor color, int numChannels, long seed) {
+        this(color, numChannels, seed, 1.0);
+    }
+
+    public NoiseSource(NoiseColor color, int numChannels, long seed, double amplitude) {
+        if (numChannels <= 0) throw new IllegalArgumentException("Channel count must be positive.");
+
+        this.color = color;
+        this.numChannels = numChannels;
+        this.seed = seed;
+        this.random = new XorShiftRandom[numChannels];
+        for (int c = 0; c < numChannels; c++) random[c] = new XorShiftRandom(seed);
+        this.pinkRows = new float[numChannels][PINK_ROWS];
+        this.pinkSum = new float[numChannels];
+        this.pinkCounter = new int[numChannels];
+        this.brown = new float[numChannels];
+        setAmplitude(amplitude);
+        reset();
+    }
+
+    // Restarts the noise from its seed.
+    public void reset() {
+        for (int c = 0; c < numChannels; c++) {
+            random[c].setSeed(seed * 31 + c);
+            pinkSum[c] = 0f;
+            pinkCounter[c] = 0;
+            brown[c] = 0f;
+            for (int row = 0; row < PINK_ROWS; row++) {
+                pinkRows[c][row] = random[c].nextFloat();
+                pinkSum[c] += pinkRows[c][row];
+            }
+        }
+    }
+
+    public NoiseColor getColor() {
+        return color;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getAmplitude() {
+        return amplitude;
+    }
+
+    // Linear gain in [0, 1].
+    public void setAmplitude(double amplitude) {
+        if (amplitude < 0 || amplitude > 1) throw new IllegalArgumentException("Amplitude must be in [0, 1].");
+        this.amplitude = (float) amplitude;
+    }
+
+    @Override
+    public int getChannelCount() {
+        return numChannels;
+    }
+
+    @Override
+    public void render(short[] out, int offset, int frames) {
+        float scale = amplitude * FULL_SCALE;
+        for (int c = 0; c < numChannels; c++) {
+            switch (color) {
+                case PINK:
+                    renderPink(c, out, offset + c, frames, scale);
+                    break;
+                case BROWN:
+                    renderBrown(c, out, offset + c, frames, scale);
+                    break;
+                default:
+                    renderWhite(c, out, offset + c, frames, scale);
+                    break;
+            }
+        }
+    }
+
+    private void renderWhite(int channel, short[] out, int offset, int frames, float scale) {
+        XorShiftRandom r = random[channel];
+        for (int i = 0; i < frames; i++) {
+            out[offset] = toShort(r.nextFloat() * scale);
+            offset += numChannels;
+        }
+    }
+
+    // Each sample refreshes the row picked by the trailing zeros of the counter, so row k is
+    // redrawn every 2^k samples. A fresh white sample on top fills in the highest octave.
+    private void renderPink(int channel, short[] out, int offset, int frames, float scale) {
+        XorShiftRandom r = random[channel];
+        float[] rows = pinkRows[channel];
+        float sum = pinkSum[channel];
+        int counter = pinkCounter[channel];
+        float gain = PINK_GAIN * scale;
+
+        for (int i = 0; i < frames; i++) {
+            counter = (counter + 1) & ((1 << PINK_ROWS) - 1);
+            if (counter != 0) {
+                int row = Integer.numberOfTrailingZeros(counter);
+                float value = r.nextFloat();
+                sum += value - rows[row];
+                rows[row] = value;
+            } else {
+                // Once per cycle, drop the rounding error the running sum picked up
+                sum = 0f;
+                for (float value : rows) sum += value;
+            }
+
+            out[offset] = toShort((sum + r.nextFloat()) * gain);
+            offset += numChannels;
+        }
+
+        pinkSum[channel] = sum;
+        pinkCounter[channel] = counter;
+    }
+
+    private void renderBrown(int channel, short[] out, int offset, int frames, float scale) {
+        XorShiftRandom r = random[channel];
+        float y = brown[channel];
+        float gain = BROWN_GAIN * scale;
+
+        for (int i = 0; i < frames; i++) {
+            y = (y + BROWN_STEP * r.nextFloat()) * BROWN_LEAK;
+            out[offset] = toShort(y * gain);
+            offset += numChannels;
+        }
+
+        brown[channel] = y;
+    }
+
+    private static short toShort(float sample) {
+        int rounded = Math.round(sample);
+        if (rounded > Short.MAX_VALUE) return Short.MAX_VALUE;
+        if (rounded < Short.MIN_VALUE) return Short.MIN_VALUE;
+        return (short) rounded;
+    }
+}
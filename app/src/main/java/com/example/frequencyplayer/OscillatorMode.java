@@ -0,0 +1,9 @@
+package com.example.frequencyplayer;
+
+// Back ends a SinSynth can render with.
+public enum OscillatorMode {
+    // Math.sin on a double phase. Most accurate, heaviest on devices without a fast FPU.
+    DOUBLE,
+    // Interpolated SineTable lookup on a 32 bit fixed point phase, integer arithmetic only.
+    FIXED_Q15
+}
@@ -0,0 +1,68 @@
+package com.example.frequencyplayer;
+
+// Interleaved 16 bit PCM held in a short[], the sample format of rendered buffers from the
+// oscillator through the render caches to the wav file. Two bytes per sample, half of an
+// int[], and written out without widening. The samples are shared, not copied.
+public final class Pcm16Buffer {
+
+    public static final int BYTES_PER_SAMPLE = 2;
+
+    private final short[] samples;
+    private final int numChannels;
+
+    // Silent buffer of numFrames frames.
+    public Pcm16Buffer(int numChannels, int numFrames) {
+        this(new short[checkChannels(numChannels) * numFrames], numChannels);
+    }
+
+    // Wraps the samples, which must hold a whole number of frames.
+    public Pcm16Buffer(short[] samples, int numChannels) {
+        checkChannels(numChannels);
+        if (samples.length % numChannels != 0) {
+            throw new IllegalArgumentException("Samples must hold a whole number of frames.");
+        }
+
+        this.samples = samples;
+        this.numChannels = numChannels;
+    }
+
+    private static int checkChannels(int numChannels) {
+        if (numChannels <= 0) throw new IllegalArgumentException("Channel count must be positive.");
+        return numChannels;
+    }
+
+    // The backing array itself. Buffers taken from the render caches must not be modified.
+    public short[] getSamples() {
+        return samples;
+    }
+
+    public int getNumChannels() {
+        return numChannels;
+    }
+
+    public int getNumFrames() {
+        return samples.length / numChannels;
+    }
+
+    public int getNumSamples() {
+        return samples.length;
+    }
+
+    public long getSizeBytes() {
+        return (long) samples.length * BYTES_PER_SAMPLE;
+    }
+
+    public short get(int frame, int channel) {
+        return samples[frame * numChannels + channel];
+    }
+
+    // Plays the buffer in a loop, without copying it.
+    public LoopedBuffer loop() {
+        return new LoopedBuffer(samples, numChannels);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Pcm16Buffer[%d frames, %d channels]", getNumFrames(), numChannels);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.frequencyplayer;
+
+// Plays a block source until stopped. Calling play() again swaps the source without a gap.
+public interface PlaybackEngine {
+
+    void play(BlockSource source);
+
+    void stop();
+
+    boolean isPlaying();
+
+    // Stops playback and frees the output device. The engine cannot be used afterwards.
+    void release();
+}
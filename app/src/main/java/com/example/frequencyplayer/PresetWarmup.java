@@ -0,0 +1,164 @@
+package com.example.frequencyplayer;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Renders the loops of the preset catalog across all cores ahead of time, so playing a preset
+// is a cache hit. Results go through Binaural.prerender into the disk cache, the whole catalog
+// would not fit the render cache. One shot: a warm-up is started once and can be cancelled
+// between loops. A pool passed in is left running.
+public class PresetWarmup {
+
+    // Called from a pool thread once every loop is rendered or the warm-up is cancelled.
+    public interface Listener {
+        void onWarmupFinished(int numRendered, long elapsedNanos, boolean cancelled);
+    }
+
+    private final List<RenderKey> keys;
+    private final ForkJoinPool pool;
+    private final boolean ownsPool;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private final AtomicInteger numRendered = new AtomicInteger();
+    private volatile long elapsedNanos = -1;
+
+    // Warms the Caduceus presets with the current sample rate, oscillator mode and loop tolerance of Binaural.
+    public PresetWarmup(double beat, double shiftDeg) {
+        this(presetKeys(beat, shiftDeg), new ForkJoinPool(), true);
+    }
+
+    public PresetWarmup(List<RenderKey> keys, ForkJoinPool pool) {
+        this(keys, pool, false);
+    }
+
+    private PresetWarmup(List<RenderKey> keys, ForkJoinPool pool, boolean ownsPool) {
+        this.keys = Collections.unmodifiableList(new ArrayList<RenderKey>(keys));
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+    }
+
+    // Loop keys of every Caduceus frequency, in ascending order of exponent.
+    public static List<RenderKey> presetKeys(double beat, double shiftDeg) {
+        List<RenderKey> keys = new ArrayList<RenderKey>();
+        for (double frequency : new TreeMap<Integer, Double>(Binaural.CADUCEUS_FREQUENCIES).values()) {
+            keys.add(RenderKey.forLoop(frequency, beat, shiftDeg, Binaural.getLoopTolerance(),
+                    Binaural.getSampleRate(), Binaural.getOscillatorMode()));
+        }
+        return keys;
+    }
+
+    // Starts the warm-up in the background and returns immediately. The listener may be null.
+    public void start(final Listener listener) {
+        checkNotStarted();
+        pool.execute(new Runnable() {
+            @Override
+            public void run() {
+                warm(listener);
+            }
+        });
+    }
+
+    // Runs the warm-up on the calling thread, using the pool for the loops, and returns the
+    // elapsed time in nanoseconds.
+    public long run() {
+        checkNotStarted();
+        warm(null);
+        return elapsedNanos;
+    }
+
+    // Stops rendering further loops. Loops already being rendered still complete and get cached.
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    public boolean isDone() {
+        return elapsedNanos >= 0;
+    }
+
+    public int getNumRendered() {
+        return numRendered.get();
+    }
+
+    // Total warm-up time in nanoseconds, or -1 while it is still running.
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public List<RenderKey> getKeys() {
+        return keys;
+    }
+
+    private void checkNotStarted() {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("Warm-up was already started.");
+        }
+    }
+
+    private void warm(Listener listener) {
+        long start = System.nanoTime();
+        try {
+            pool.invoke(new WarmTask(0, keys.size()));
+        } catch (RuntimeException e) {
+            // A pool shut down under the warm-up rejects it, nothing is left to throw to
+            Log.d("binaural", "Warm-up failed: " + e);
+        } finally {
+            elapsedNanos = System.nanoTime() - start;
+            if (ownsPool) pool.shutdown();
+        }
+
+        Log.d("binaural", String.format("Warmed %d of %d presets in %.1f ms%s.", numRendered.get(), keys.size(),
+                elapsedNanos / 1e6, cancelled.get() ? ", cancelled" : ""));
+        if (listener != null) {
+            listener.onWarmupFinished(numRendered.get(), elapsedNanos, cancelled.get());
+        }
+    }
+
+    // Splits the key range in halves until a single loop is left to render.
+    private class WarmTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        WarmTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (cancelled.get()) return;
+
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new WarmTask(from, middle), new WarmTask(middle, to));
+                return;
+            }
+
+            if (to > from) {
+                RenderKey key = keys.get(from);
+                try {
+                    Binaural.prerender(key);
+                    numRendered.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // One failed loop is rendered again when played, the others still get warmed
+                    Log.d("binaural", "Warm-up of " + key + " failed: " + e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.frequencyplayer;
+
+// Plays a FloatBlockSource through anything that takes a BlockSource, such as the streaming
+// engine. This is the output stage of the float pipeline and the only place it is quantized.
+public class QuantizedSource implements BlockSource {
+
+    private final FloatBlockSource source;
+    private final Quantizer quantizer;
+
+    // Float samples of the block being converted, grown to the largest block pulled
+    private float[] buffer = new float[0];
+
+    public QuantizedSource(FloatBlockSource source, boolean dither) {
+        this(source, new Quantizer(dither));
+    }
+
+    public QuantizedSource(FloatBlockSource source, Quantizer quantizer) {
+        this.source = source;
+        this.quantizer = quantizer;
+    }
+
+    public FloatBlockSource getSource() {
+        return source;
+    }
+
+    public Quantizer getQuantizer() {
+        return quantizer;
+    }
+
+    @Override
+    public int getChannelCount() {
+        return source.getChannelCount();
+    }
+
+    @Override
+    public void render(short[] out, int offset, int frames) {
+        int samples = frames * source.getChannelCount();
+        if (buffer.length < samples) buffer = new float[samples];
+
+        source.render(buffer, 0, frames);
+        quantizer.quantize(buffer, 0, out, offset, samples);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.frequencyplayer;
+
+// Converts float samples, full scale 1, to 16 bit. With dither on, TPDF noise of +-1 LSB is
+// added before rounding, which turns the quantization error of quiet and slowly changing
+// signals into a constant hiss instead of distortion that follows the signal.
+public final class Quantizer {
+
+    private static final float FULL_SCALE = 32767f;
+
+    private final XorShiftRandom random;
+    private volatile boolean dither;
+
+    public Quantizer(boolean dither) {
+        this(dither, 0);
+    }
+
+    // The dither noise only depends on the seed, so dithered renders can be compared.
+    public Quantizer(boolean dither, long seed) {
+        this.random = new XorShiftRandom(seed);
+        this.dither = dither;
+    }
+
+    public boolean isDither() {
+        return dither;
+    }
+
+    public void setDither(boolean dither) {
+        this.dither = dither;
+    }
+
+    // Quantizes numSamples samples of in into out. Samples past full scale are clipped.
+    public void quantize(float[] in, int inOffset, short[] out, int outOffset, int numSamples) {
+        if (dither) {
+            XorShiftRandom r = random;
+            for (int i = 0; i < numSamples; i++) {
+                // The sum of two uniform values in [-0.5, 0.5) LSB is triangular in [-1, 1) LSB
+                float noise = (r.nextFloat() + r.nextFloat()) * 0.5f;
+                out[outOffset + i] = toShort(in[inOffset + i] * FULL_SCALE + noise);
+            }
+        } else {
+            for (int i = 0; i < numSamples; i++) {
+                out[outOffset + i] = toShort(in[inOffset + i] * FULL_SCALE);
+            }
+        }
+    }
+
+    private static short toShort(float sample) {
+        int rounded = Math.round(sample);
+        if (rounded > Short.MAX_VALUE) return Short.MAX_VALUE;
+        if (rounded < Short.MIN_VALUE) return Short.MIN_VALUE;
+        return (short) rounded;
+    }
+}
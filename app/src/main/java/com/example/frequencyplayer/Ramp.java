@@ -0,0 +1,88 @@
+package com.example.frequencyplayer;
+
+// Glide of a parameter from one value to another over a duration, holding the end value
+// afterwards. Evaluated on demand, so a glide of any length costs no memory.
+public final class Ramp {
+
+    public enum Shape {
+        // Equal steps per second, for beats and carriers in Hz
+        LINEAR,
+        // Equal ratios per second, sounds even to the ear across octaves. Both values must be positive.
+        EXPONENTIAL
+    }
+
+    private final double start;
+    private final double end;
+    private final double durationSec;
+    private final Shape shape;
+
+    private Ramp(double start, double end, double durationSec, Shape shape) {
+        if (durationSec < 0) throw new IllegalArgumentException("Ramp duration must not be negative.");
+        if (shape == Shape.EXPONENTIAL && (start <= 0 || end <= 0)) {
+            throw new IllegalArgumentException("Exponential ramps need positive values.");
+        }
+
+        this.start = start;
+        this.end = end;
+        this.durationSec = durationSec;
+        this.shape = shape;
+    }
+
+    public static Ramp constant(double value) {
+        return new Ramp(value, value, 0.0, Shape.LINEAR);
+    }
+
+    public static Ramp linear(double start, double end, double durationSec) {
+        return new Ramp(start, end, durationSec, Shape.LINEAR);
+    }
+
+    public static Ramp exponential(double start, double end, double durationSec) {
+        return new Ramp(start, end, durationSec, Shape.EXPONENTIAL);
+    }
+
+    // Value at the given time since the start of the ramp.
+    public double valueAt(double timeSec) {
+        if (timeSec <= 0) return start;
+        if (timeSec >= durationSec) return end;
+
+        double progress = timeSec / durationSec;
+        if (shape == Shape.EXPONENTIAL) {
+            return start * Math.pow(end / start, progress);
+        }
+        return start + (end - start) * progress;
+    }
+
+    public boolean isConstant() {
+        return start == end;
+    }
+
+    public double getStart() {
+        return start;
+    }
+
+    public double getEnd() {
+        return end;
+    }
+
+    // Both shapes are monotonic, so the extremes are at the ends.
+    public double getMin() {
+        return Math.min(start, end);
+    }
+
+    public double getMax() {
+        return Math.max(start, end);
+    }
+
+    public double getDurationSec() {
+        return durationSec;
+    }
+
+    public Shape getShape() {
+        return shape;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Ramp[%s %.5f -> %.5f in %.3f s]", shape, start, end, durationSec);
+    }
+}
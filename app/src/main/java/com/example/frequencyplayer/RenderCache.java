@@ -0,0 +1,96 @@
+package com.example.frequencyplayer;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Least recently used cache of rendered interleaved buffers, bounded by the total bytes of PCM
+// it holds. All methods are safe to call from any thread.
+public class RenderCache {
+
+    private final long maxBytes;
+    private final LinkedHashMap<RenderKey, Pcm16Buffer> entries = new LinkedHashMap<RenderKey, Pcm16Buffer>(16, 0.75f, true);
+    private long sizeBytes;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    public RenderCache(long maxBytes) {
+        if (maxBytes <= 0) throw new IllegalArgumentException("Cache size must be positive.");
+        this.maxBytes = maxBytes;
+    }
+
+    // Returns the cached buffer and marks it as most recently used, or null on a miss.
+    public synchronized Pcm16Buffer get(RenderKey key) {
+        Pcm16Buffer buffer = entries.get(key);
+        if (buffer == null) {
+            missCount++;
+        } else {
+            hitCount++;
+        }
+        return buffer;
+    }
+
+    // Stores the buffer, evicting least recently used entries until it fits. Buffers larger
+    // than the whole cache are not stored. Cached buffers must not be modified afterwards.
+    public synchronized void put(RenderKey key, Pcm16Buffer buffer) {
+        long bytes = sizeOf(buffer);
+        if (bytes > maxBytes) return;
+
+        Pcm16Buffer previous = entries.put(key, buffer);
+        if (previous != null) sizeBytes -= sizeOf(previous);
+        sizeBytes += bytes;
+
+        Iterator<Map.Entry<RenderKey, Pcm16Buffer>> eldest = entries.entrySet().iterator();
+        while (sizeBytes > maxBytes) {
+            Map.Entry<RenderKey, Pcm16Buffer> entry = eldest.next();
+            sizeBytes -= sizeOf(entry.getValue());
+            eldest.remove();
+            evictionCount++;
+        }
+    }
+
+    public synchronized boolean contains(RenderKey key) {
+        return entries.containsKey(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        sizeBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("RenderCache[%d entries, %d/%d bytes, %d hits, %d misses, %d evictions]",
+                entries.size(), sizeBytes, maxBytes, hitCount, missCount, evictionCount);
+    }
+
+    private static long sizeOf(Pcm16Buffer buffer) {
+        return buffer.getSizeBytes();
+    }
+}
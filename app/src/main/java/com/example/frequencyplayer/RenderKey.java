@@ -0,0 +1,111 @@
+package com.example.frequencyplayer;
+
+// Immutable description of everything that determines a rendered buffer. Two equal keys always
+// render to identical PCM, so a key can stand in for its buffer in caches.
+public final class RenderKey {
+
+    private final double frequency;
+    private final double beat;
+    private final double shiftDeg;
+    private final double durationSec;           // 0 for a planned loop
+    private final double loopToleranceCycles;   // 0 for a fixed duration
+    private final int sampleRate;
+    private final OscillatorMode oscillatorMode;
+
+    private RenderKey(double frequency, double beat, double shiftDeg, double durationSec,
+                      double loopToleranceCycles, int sampleRate, OscillatorMode oscillatorMode) {
+        if (oscillatorMode == null) throw new NullPointerException("Oscillator mode must not be null.");
+
+        this.frequency = frequency;
+        this.beat = beat;
+        this.shiftDeg = shiftDeg;
+        this.durationSec = durationSec;
+        this.loopToleranceCycles = loopToleranceCycles;
+        this.sampleRate = sampleRate;
+        this.oscillatorMode = oscillatorMode;
+    }
+
+    // Key of a buffer of whole seamless loops filling durationSec, see Binaural.generateBuffers().
+    public static RenderKey forDuration(double frequency, double beat, double shiftDeg, double durationSec,
+                                        int sampleRate, OscillatorMode oscillatorMode) {
+        if (durationSec <= 0) throw new IllegalArgumentException("Duration must me positive.");
+        return new RenderKey(frequency, beat, shiftDeg, durationSec, 0, sampleRate, oscillatorMode);
+    }
+
+    // Key of the shortest seamless loop, see Binaural.generateLoop().
+    public static RenderKey forLoop(double frequency, double beat, double shiftDeg, double loopToleranceCycles,
+                                    int sampleRate, OscillatorMode oscillatorMode) {
+        return new RenderKey(frequency, beat, shiftDeg, 0, loopToleranceCycles, sampleRate, oscillatorMode);
+    }
+
+    public double getFrequency() {
+        return frequency;
+    }
+
+    public double getBeat() {
+        return beat;
+    }
+
+    public double getShiftDeg() {
+        return shiftDeg;
+    }
+
+    public double getDurationSec() {
+        return durationSec;
+    }
+
+    public double getLoopToleranceCycles() {
+        return loopToleranceCycles;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public OscillatorMode getOscillatorMode() {
+        return oscillatorMode;
+    }
+
+    public boolean isLoop() {
+        return durationSec == 0;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RenderKey)) return false;
+
+        RenderKey other = (RenderKey) o;
+        return Double.compare(frequency, other.frequency) == 0 &&
+                Double.compare(beat, other.beat) == 0 &&
+                Double.compare(shiftDeg, other.shiftDeg) == 0 &&
+                Double.compare(durationSec, other.durationSec) == 0 &&
+                Double.compare(loopToleranceCycles, other.loopToleranceCycles) == 0 &&
+                sampleRate == other.sampleRate &&
+                oscillatorMode == other.oscillatorMode;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = hash(frequency);
+        result = 31 * result + hash(beat);
+        result = 31 * result + hash(shiftDeg);
+        result = 31 * result + hash(durationSec);
+        result = 31 * result + hash(loopToleranceCycles);
+        result = 31 * result + sampleRate;
+        result = 31 * result + oscillatorMode.hashCode();
+        return result;
+    }
+
+    private static int hash(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "RenderKey[frequency=" + frequency + ", beat=" + beat + ", shiftDeg=" + shiftDeg +
+                ", durationSec=" + durationSec + ", loopToleranceCycles=" + loopToleranceCycles +
+                ", sampleRate=" + sampleRate + ", oscillatorMode=" + oscillatorMode + "]";
+    }
+}
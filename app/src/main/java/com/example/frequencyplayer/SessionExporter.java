@@ -0,0 +1,166 @@
+package com.example.frequencyplayer;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Writes a session of any length to a wav file for offline use. Blocks are pulled from the
+// source and streamed through WavFile one at a time, so memory use does not depend on the
+// duration. One shot: an export runs once and can be cancelled between blocks. Nothing here
+// needs Android, so the BatchRenderer runs it on a plain JVM.
+public class SessionExporter {
+
+    public static final int DEFAULT_BLOCK_FRAMES = 4096;
+
+    // Frames written between two progress reports, about 1.4 s at 48 kHz
+    static final int PROGRESS_INTERVAL_FRAMES = 1 << 16;
+
+    // Collects the 4 KiB writes of WavFile into larger ones on the way to disk
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    // Called on the exporting thread.
+    public interface Listener {
+        void onProgress(long framesWritten, long totalFrames, long elapsedNanos);
+    }
+
+    private final BlockSource source;
+    private final long totalFrames;
+    private final int sampleRate;
+    private final short[] block;
+    private final int blockFrames;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean cancelled;
+    private volatile long framesWritten;
+    private volatile long elapsedNanos = -1;
+
+    public SessionExporter(BlockSource source, long totalFrames, int sampleRate) {
+        this(source, totalFrames, sampleRate, DEFAULT_BLOCK_FRAMES);
+    }
+
+    public SessionExporter(BlockSource source, long totalFrames, int sampleRate, int blockFrames) {
+        if (totalFrames < 0) throw new IllegalArgumentException("Frame count must not be negative.");
+        if (sampleRate <= 0) throw new IllegalArgumentException("Sample rate must be positive.");
+        if (blockFrames <= 0) throw new IllegalArgumentException("Block size must be positive.");
+
+        this.source = source;
+        this.totalFrames = totalFrames;
+        this.sampleRate = sampleRate;
+        this.blockFrames = blockFrames;
+        this.block = new short[blockFrames * source.getChannelCount()];
+    }
+
+    // Exports the whole program, from the first frame of its first segment to the end of the last.
+    public static SessionExporter forProgram(SessionProgram program, OscillatorMode mode) {
+        return new SessionExporter(new SessionScheduler(program, mode), program.getTotalFrames(),
+                program.getSampleRate());
+    }
+
+    // Exports into the file. A cancelled or failed export deletes the partial file.
+    public void export(File file, Listener listener) throws IOException, WavFileException {
+        checkNotStarted();
+
+        boolean complete = false;
+        try {
+            write(new BufferedOutputStream(new FileOutputStream(file), WRITE_BUFFER_BYTES), listener);
+            complete = true;
+        } finally {
+            if (!complete) file.delete();
+        }
+    }
+
+    // Exports into the stream and closes it. The listener may be null. A cancelled export throws
+    // a CancellationException and leaves a truncated file in the stream.
+    public void export(OutputStream outputStream, Listener listener) throws IOException, WavFileException {
+        checkNotStarted();
+        write(outputStream, listener);
+    }
+
+    // Stops the export before the next block.
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    // True once every frame was written and the output closed. A cancelled or failed export never is.
+    public boolean isDone() {
+        return elapsedNanos >= 0;
+    }
+
+    public long getFramesWritten() {
+        return framesWritten;
+    }
+
+    public long getTotalFrames() {
+        return totalFrames;
+    }
+
+    // Size of the finished file in bytes, header included.
+    public long getFileSize() {
+        return WavFile.getFileSize(source.getChannelCount(), totalFrames, Binaural.BIT_DEPTH);
+    }
+
+    // Export time in nanoseconds, or -1 until the export is done.
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    // Frames written per second of export time, 0 before the export is done.
+    public double getFramesPerSecond() {
+        return elapsedNanos > 0 ? framesWritten * 1e9 / elapsedNanos : 0.0;
+    }
+
+    // Sample data bytes written per second of export time, 0 before the export is done.
+    public double getBytesPerSecond() {
+        return getFramesPerSecond() * source.getChannelCount() * (Binaural.BIT_DEPTH / 8);
+    }
+
+    private void checkNotStarted() {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("Export was already started.");
+        }
+    }
+
+    private void write(OutputStream outputStream, Listener listener) throws IOException, WavFileException {
+        long start = System.nanoTime();
+        WavFile wavFile = null;
+        try {
+            wavFile = WavFile.newWavFile(outputStream, source.getChannelCount(), totalFrames,
+                    Binaural.BIT_DEPTH, sampleRate);
+
+            Thread caller = Thread.currentThread();
+            long nextReport = PROGRESS_INTERVAL_FRAMES;
+            long written = 0;
+            while (written < totalFrames) {
+                if (cancelled || caller.isInterrupted()) throw new CancellationException("Export was cancelled.");
+
+                int n = (int) Math.min(blockFrames, totalFrames - written);
+                source.render(block, 0, n);
+                wavFile.writeFrames(block, 0, n);
+                written += n;
+                framesWritten = written;
+
+                if (listener != null && (written >= nextReport || written == totalFrames)) {
+                    listener.onProgress(written, totalFrames, System.nanoTime() - start);
+                    nextReport = written + PROGRESS_INTERVAL_FRAMES;
+                }
+            }
+        } finally {
+            if (wavFile != null) {
+                wavFile.close();
+            } else {
+                outputStream.close();
+            }
+        }
+
+        // Only reached when the whole export went through
+        elapsedNanos = System.nanoTime() - start;
+    }
+}
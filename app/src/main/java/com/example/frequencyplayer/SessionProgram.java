@@ -0,0 +1,129 @@
+package com.example.frequencyplayer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Ordered list of binaural segments played back to back. Segment boundaries are computed
+// from the summed durations and rounded once, so they land on exact frames however long
+// the program is.
+public final class SessionProgram {
+
+    // One step of a program. Its ramps start with the segment. Over the first transitionSec the
+    // segment fades in over the previous one, or over silence for the first segment.
+    public static final class Segment {
+
+        private final Ramp frequency;
+        private final Ramp beat;
+        private final double shiftDeg;
+        private final double durationSec;
+        private final double transitionSec;
+
+        public Segment(double frequency, double beat, double shiftDeg, double durationSec, double transitionSec) {
+            this(Ramp.constant(frequency), Ramp.constant(beat), shiftDeg, durationSec, transitionSec);
+        }
+
+        public Segment(Ramp frequency, Ramp beat, double shiftDeg, double durationSec, double transitionSec) {
+            if (durationSec <= 0) throw new IllegalArgumentException("Segment duration must be positive.");
+            if (transitionSec < 0 || transitionSec > durationSec) {
+                throw new IllegalArgumentException("Transition must be in [0, durationSec].");
+            }
+
+            this.frequency = frequency;
+            this.beat = beat;
+            this.shiftDeg = shiftDeg;
+            this.durationSec = durationSec;
+            this.transitionSec = transitionSec;
+        }
+
+        public Ramp getFrequency() {
+            return frequency;
+        }
+
+        public Ramp getBeat() {
+            return beat;
+        }
+
+        public double getShiftDeg() {
+            return shiftDeg;
+        }
+
+        public double getDurationSec() {
+            return durationSec;
+        }
+
+        public double getTransitionSec() {
+            return transitionSec;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Segment[frequency=%s, beat=%s, shiftDeg=%.3f, durationSec=%.3f, transitionSec=%.3f]",
+                    frequency, beat, shiftDeg, durationSec, transitionSec);
+        }
+    }
+
+    private final int sampleRate;
+    private final List<Segment> segments;
+    private final long[] startFrames; // One more than segments, the last one is the total
+    private final int[] transitionFrames;
+
+    public SessionProgram(int sampleRate, List<Segment> segments) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("Sample rate must be positive.");
+        if (segments.isEmpty()) throw new IllegalArgumentException("A program needs at least one segment.");
+
+        this.sampleRate = sampleRate;
+        this.segments = Collections.unmodifiableList(new ArrayList<Segment>(segments));
+        this.startFrames = new long[segments.size() + 1];
+        this.transitionFrames = new int[segments.size()];
+
+        double startSec = 0.0;
+        for (int i = 0; i < segments.size(); i++) {
+            Segment segment = segments.get(i);
+            startFrames[i] = Math.round(startSec * sampleRate);
+            startSec += segment.getDurationSec();
+            startFrames[i + 1] = Math.round(startSec * sampleRate);
+
+            long frames = startFrames[i + 1] - startFrames[i];
+            transitionFrames[i] = (int) Math.min(frames, Math.round(segment.getTransitionSec() * sampleRate));
+        }
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    public Segment getSegment(int index) {
+        return segments.get(index);
+    }
+
+    public List<Segment> getSegments() {
+        return segments;
+    }
+
+    // First frame of the segment.
+    public long getStartFrame(int index) {
+        return startFrames[index];
+    }
+
+    // First frame after the segment, where the next one starts.
+    public long getEndFrame(int index) {
+        return startFrames[index + 1];
+    }
+
+    public int getTransitionFrames(int index) {
+        return transitionFrames[index];
+    }
+
+    public long getTotalFrames() {
+        return startFrames[segments.size()];
+    }
+
+    public double getDurationSec() {
+        return (double) getTotalFrames() / sampleRate;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.frequencyplayer;
+
+// Streams a SessionProgram. Each segment gets its own BinauralSource when playback reaches
+// it, and the previous one is dropped once the crossfade into the next is over, so a program
+// of any length plays with constant memory. Boundaries fall on the exact frames of the
+// program whatever block size is pulled. Silence follows the last segment.
+public class SessionScheduler implements BlockSource {
+
+    private static final int NUM_CHANNELS = 2;
+
+    private final SessionProgram program;
+    private final OscillatorMode mode;
+
+    private long position;
+    private int segmentIndex = -1;
+    private BinauralSource current;
+    private BinauralSource previous; // Fading out under current, null for silence
+
+    // Samples of the fading segment, grown to the largest block pulled
+    private short[] fadeBuffer = new short[0];
+
+    public SessionScheduler(SessionProgram program, OscillatorMode mode) {
+        this.program = program;
+        this.mode = mode;
+    }
+
+    @Override
+    public int getChannelCount() {
+        return NUM_CHANNELS;
+    }
+
+    @Override
+    public void render(short[] out, int offset, int frames) {
+        for (int done = 0; done < frames; ) {
+            advanceSegment();
+            int o = offset + NUM_CHANNELS * done;
+
+            if (isFinished()) {
+                int end = offset + NUM_CHANNELS * frames;
+                for (int i = o; i < end; i++) out[i] = 0;
+                position += frames - done;
+                return;
+            }
+
+            // Render up to the next event: the end of the crossfade or of the segment
+            long fadeEnd = program.getStartFrame(segmentIndex) + program.getTransitionFrames(segmentIndex);
+            long nextEvent = position < fadeEnd ? fadeEnd : program.getEndFrame(segmentIndex);
+            int n = (int) Math.min(frames - done, nextEvent - position);
+
+            current.render(out, o, n);
+            if (position < fadeEnd) {
+                crossfade(out, o, n);
+            }
+
+            done += n;
+            position += n;
+            if (position >= fadeEnd) previous = null;
+        }
+    }
+
+    // Frames rendered since the start of the program.
+    public long getPosition() {
+        return position;
+    }
+
+    // Index of the segment playing, -1 before the first block.
+    public int getSegmentIndex() {
+        return segmentIndex;
+    }
+
+    public boolean isFinished() {
+        return position >= program.getTotalFrames();
+    }
+
+    public SessionProgram getProgram() {
+        return program;
+    }
+
+    private void advanceSegment() {
+        while (segmentIndex + 1 < program.getSegmentCount() && position >= program.getStartFrame(segmentIndex + 1)) {
+            segmentIndex++;
+            SessionProgram.Segment segment = program.getSegment(segmentIndex);
+
+            previous = program.getTransitionFrames(segmentIndex) > 0 ? current : null;
+            current = new BinauralSource(program.getSampleRate(), segment.getFrequency(), segment.getBeat(),
+                    segment.getShiftDeg(), mode);
+        }
+    }
+
+    // Equal-power crossfade of the fading segment into the n frames of current already in out.
+    private void crossfade(short[] out, int offset, int n) {
+        if (previous != null) {
+            if (fadeBuffer.length < NUM_CHANNELS * n) fadeBuffer = new short[NUM_CHANNELS * n];
+            previous.render(fadeBuffer, 0, n);
+        }
+
+        long start = program.getStartFrame(segmentIndex);
+        double transition = program.getTransitionFrames(segmentIndex);
+        for (int f = 0; f < n; f++) {
+            double angle = 0.5 * Math.PI * (position + f - start) / transition;
+            double gainIn = Math.sin(angle);
+            double gainOut = Math.cos(angle);
+
+            for (int c = 0; c < NUM_CHANNELS; c++) {
+                int i = offset + NUM_CHANNELS * f + c;
+                double faded = previous != null ? fadeBuffer[NUM_CHANNELS * f + c] : 0.0;
+                out[i] = clip(out[i] * gainIn + faded * gainOut);
+            }
+        }
+    }
+
+    // Equal power keeps the loudness of unrelated signals, in phase ones can sum past full scale.
+    private static short clip(double sample) {
+        long rounded = Math.round(sample);
+        if (rounded > Short.MAX_VALUE) return Short.MAX_VALUE;
+        if (rounded < Short.MIN_VALUE) return Short.MIN_VALUE;
+        return (short) rounded;
+    }
+}
@@ -1,6 +1,218 @@
 package com.example.frequencyplayer;
 
-public class SinSynth {
+// Sine oscillator with a continuous phase accumulator. The frequency is not rounded to a whole
+// number of samples per period, so any frequency plays at its exact pitch at any sample rate.
+// It renders 16 bit or float samples from the same phase, so both can be mixed. Both back ends
+// keep the phase in integers, so the phase of a sample depends on its frame index alone and a
+// synth skipped ahead renders exactly what a continuous one does.
+public class SinSynth implements BlockSource, FloatBlockSource {
 
+    private static final double FULL_SCALE = 32767; // [-1 1] double to short
+    private static final double PHASE_SCALE = 4294967296.0; // 2^32, one cycle of fixed point phase
+    private static final double LONG_PHASE_SCALE = 0x1p64; // one cycle of the DOUBLE phase
+    private static final double LONG_PHASE_TO_RADIANS = 2.0 * Math.PI * 0x1p-53; // top 53 bits of the phase to radians
+    private static final float TABLE_TO_UNIT = 1f / 32767; // Q15 table value to [-1 1] float
 
-}
\ No newline at end of file
+    private final int sampleRate;
+    private OscillatorMode mode;
+    private double frequency;
+    private double amplitude;
+
+    // DOUBLE state: phase in 1/2^64 cycles, wrapping on integer overflow
+    private long increment;
+    private long phase;
+
+    // FIXED_Q15 state: phase in 1/2^32 cycles, wrapping on integer overflow
+    private int fixedIncrement;
+    private int fixedPhase;
+    private int fixedAmplitude; // Q15, 32768 is unity gain
+
+    public SinSynth(int sampleRate, double frequency) {
+        this(sampleRate, frequency, 0.0);
+    }
+
+    public SinSynth(int sampleRate, double frequency, double shiftDeg) {
+        this(sampleRate, frequency, shiftDeg, OscillatorMode.DOUBLE);
+    }
+
+    public SinSynth(int sampleRate, double frequency, double shiftDeg, OscillatorMode mode) {
+        if (sampleRate <= 0) throw new IllegalArgumentException("Sample rate must be positive.");
+
+        this.sampleRate = sampleRate;
+        this.mode = mode;
+        setAmplitude(1.0);
+        setFrequency(frequency);
+        setPhase(shiftDeg / 360.0);
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public OscillatorMode getMode() {
+        return mode;
+    }
+
+    // Switches back end, carrying the current phase over.
+    public void setMode(OscillatorMode mode) {
+        double current = getPhase();
+        this.mode = mode;
+        setPhase(current);
+    }
+
+    public double getFrequency() {
+        return frequency;
+    }
+
+    // Changes the pitch from the next sample on without resetting the phase, so there is no click.
+    public void setFrequency(double frequency) {
+        if (frequency < 0 || frequency >= sampleRate / 2.0) {
+            throw new IllegalArgumentException("Frequency must be in [0, sampleRate / 2).");
+        }
+        this.frequency = frequency;
+        double cycles = frequency / sampleRate; // below half a cycle, fits a signed long below
+        this.increment = Math.round(cycles * LONG_PHASE_SCALE);
+        this.fixedIncrement = (int) Math.round(cycles * PHASE_SCALE);
+    }
+
+    // Phase in cycles of the next rendered sample.
+    public double getPhase() {
+        if (mode == OscillatorMode.FIXED_Q15) return (fixedPhase & 0xFFFFFFFFL) / PHASE_SCALE;
+        return (phase >>> 11) * 0x1p-53;
+    }
+
+    public void setPhase(double cycles) {
+        double fraction = cycles - Math.floor(cycles);
+        phase = Math.round(fraction * 0x1p53) << 11; // a full cycle shifts out to 0
+        fixedPhase = (int) Math.round(fraction * PHASE_SCALE);
+    }
+
+    // Advances the phase by the given number of samples without rendering them. The phase is
+    // computed from the sample count directly and wraps like rendering does, exact in both modes,
+    // so a synth skipped to any frame renders the same thing wherever it is created.
+    public void skip(long frames) {
+        if (frames < 0) throw new IllegalArgumentException("Cannot skip backwards.");
+
+        phase += frames * increment;
+        fixedPhase += (int) (frames * fixedIncrement);
+    }
+
+    public double getAmplitude() {
+        return amplitude;
+    }
+
+    // Linear gain in [0, 1].
+    public void setAmplitude(double amplitude) {
+        if (amplitude < 0 || amplitude > 1) throw new IllegalArgumentException("Amplitude must be in [0, 1].");
+        this.amplitude = amplitude;
+        this.fixedAmplitude = (int) Math.round(amplitude * 32768);
+    }
+
+    @Override
+    public int getChannelCount() {
+        return 1;
+    }
+
+    @Override
+    public void render(short[] out, int offset, int frames) {
+        render(out, offset, frames, 1);
+    }
+
+    // Writes frames samples into out, stride apart, starting at offset. A stride of 2 fills
+    // one channel of an interleaved stereo block. Allocates nothing.
+    public void render(short[] out, int offset, int frames, int stride) {
+        if (mode == OscillatorMode.FIXED_Q15) {
+            renderFixed(out, offset, frames, stride);
+        } else {
+            renderDouble(out, offset, frames, stride);
+        }
+    }
+
+    @Override
+    public void render(float[] out, int offset, int frames) {
+        render(out, offset, frames, 1);
+    }
+
+    // Same as render(short[], ...) with float samples in [-1 1], nothing is rounded to 16 bit.
+    public void render(float[] out, int offset, int frames, int stride) {
+        if (mode == OscillatorMode.FIXED_Q15) {
+            renderFixed(out, offset, frames, stride);
+        } else {
+            renderDouble(out, offset, frames, stride);
+        }
+    }
+
+    private void renderDouble(short[] out, int offset, int frames, int stride) {
+        long p = phase;
+        long inc = increment;
+        double scale = amplitude * FULL_SCALE;
+
+        for (int i = 0; i < frames; i++) {
+            out[offset] = (short) (Math.sin((p >>> 11) * LONG_PHASE_TO_RADIANS) * scale);
+            offset += stride;
+
+            p += inc;
+        }
+
+        phase = p;
+    }
+
+    // The sine is taken in double, a float phase would drift off pitch over a long session.
+    private void renderDouble(float[] out, int offset, int frames, int stride) {
+        long p = phase;
+        long inc = increment;
+        float gain = (float) amplitude;
+
+        for (int i = 0; i < frames; i++) {
+            out[offset] = (float) Math.sin((p >>> 11) * LONG_PHASE_TO_RADIANS) * gain;
+            offset += stride;
+
+            p += inc;
+        }
+
+        phase = p;
+    }
+
+    // Same as SineTable.lookup(), inlined so the loop touches only locals and the table.
+    private void renderFixed(short[] out, int offset, int frames, int stride) {
+        short[] table = SineTable.TABLE;
+        int p = fixedPhase;
+        int inc = fixedIncrement;
+        int gain = fixedAmplitude;
+
+        for (int i = 0; i < frames; i++) {
+            int index = p >>> SineTable.INDEX_SHIFT;
+            int fraction = (p >>> SineTable.FRACTION_SHIFT) & 0x7FFF;
+            int a = table[index];
+            int sample = a + (((table[index + 1] - a) * fraction) >> 15);
+
+            out[offset] = (short) ((sample * gain) >> 15);
+            offset += stride;
+
+            p += inc;
+        }
+
+        fixedPhase = p;
+    }
+
+    // Interpolates like renderFixed() above and only scales the result, one conversion per sample.
+    private void renderFixed(float[] out, int offset, int frames, int stride) {
+        short[] table = SineTable.TABLE;
+        int p = fixedPhase;
+        int inc = fixedIncrement;
+        float gain = (float) amplitude * TABLE_TO_UNIT;
+
+        for (int i = 0; i < frames; i++) {
+            int index = p >>> SineTable.INDEX_SHIFT;
+            int fraction = (p >>> SineTable.FRACTION_SHIFT) & 0x7FFF;
+            int a = table[index];
+
+            out[offset] = (a + (((table[index + 1] - a) * fraction) >> 15)) * gain;
+            offset += stride;
+
+            p += inc;
+        }
+
+        fixedPhase = p;
+    }
+}
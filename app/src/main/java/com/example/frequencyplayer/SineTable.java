@@ -0,0 +1,34 @@
+package com.example.frequencyplayer;
+
+// One period of sine in Q15, shared by every fixed point oscillator.
+public final class SineTable {
+
+    // 1024 entries keep the linear interpolation error well below 1 LSB while the whole
+    // table (2 KiB) stays in the L1 cache.
+    public static final int TABLE_BITS = 10;
+    public static final int TABLE_SIZE = 1 << TABLE_BITS;
+
+    // Bits of a 32 bit phase below the table index, and how far to shift them down to Q15
+    static final int INDEX_SHIFT = 32 - TABLE_BITS;
+    static final int FRACTION_SHIFT = INDEX_SHIFT - 15;
+
+    // TABLE_SIZE + 1 entries: the guard entry lets interpolation read index + 1 without wrapping
+    static final short[] TABLE = new short[TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            TABLE[i] = (short) Math.round(Math.sin(2.0 * Math.PI * i / TABLE_SIZE) * 32767);
+        }
+    }
+
+    private SineTable() {
+    }
+
+    // Sine of a phase in 1/2^32 cycles, as a Q15 value.
+    public static int lookup(int phase) {
+        int index = phase >>> INDEX_SHIFT;
+        int fraction = (phase >>> FRACTION_SHIFT) & 0x7FFF;
+        int a = TABLE[index];
+        return a + (((TABLE[index + 1] - a) * fraction) >> 15);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.frequencyplayer;
+
+import java.util.Arrays;
+
+// Lookahead peak limiter for a float stereo mix, full scale is 1. Every frame is delayed
+// by the lookahead, so the gain starts falling before a peak arrives and glides instead of
+// jumping. Peaks never leave above the ceiling. All state is allocated up front.
+public class SoftLimiter {
+
+    public static final double DEFAULT_CEILING = 0.89; // About -1 dBFS
+    public static final double DEFAULT_LOOKAHEAD_SEC = 0.002;
+    public static final double DEFAULT_RELEASE_SEC = 0.05;
+
+    private static final int NUM_CHANNELS = 2;
+
+    private final float ceiling;
+    private final int lookahead;
+    private final float attack;
+    private final float release;
+
+    // Delayed frames and the gain each one needs, circular over lookahead frames
+    private final float[] delayed;
+    private final float[] delayedGain;
+    private int delayPosition;
+
+    // Monotonic queue of the smallest needed gain over the lookahead window
+    private final long[] windowIndex;
+    private final float[] windowGain;
+    private int windowHead;
+    private int windowSize;
+
+    private long frameIndex;
+    private float gain = 1f; // Smoothed towards the window minimum
+    private float appliedGain = 1f;
+
+    public SoftLimiter(int sampleRate) {
+        this(sampleRate, DEFAULT_CEILING, DEFAULT_LOOKAHEAD_SEC, DEFAULT_RELEASE_SEC);
+    }
+
+    // Ceiling is relative to full scale, in (0, 1].
+    public SoftLimiter(int sampleRate, double ceiling, double lookaheadSec, double releaseSec) {
+        if (ceiling <= 0 || ceiling > 1) throw new IllegalArgumentException("Ceiling must be in (0, 1].");
+
+        this.ceiling = (float) ceiling;
+        this.lookahead = Math.max(1, (int) Math.round(lookaheadSec * sampleRate));
+
+        // Attack settles within the lookahead, release is a plain one pole
+        this.attack = (float) (1.0 - Math.exp(-4.6 / lookahead));
+        this.release = (float) (1.0 - Math.exp(-1.0 / Math.max(1.0, releaseSec * sampleRate)));
+
+        this.delayed = new float[NUM_CHANNELS * lookahead];
+        this.delayedGain = new float[lookahead];
+        this.windowIndex = new long[lookahead + 1];
+        this.windowGain = new float[lookahead + 1];
+        reset();
+    }
+
+    // Frames of delay between input and output.
+    public int getLatencyFrames() {
+        return lookahead;
+    }
+
+    // Gain applied to the last output frame, 1 when not limiting. This is the smoothed gain,
+    // lowered further where a delayed frame needs it to stay under the ceiling.
+    public float getGain() {
+        return appliedGain;
+    }
+
+    public void reset() {
+        Arrays.fill(delayed, 0f);
+        Arrays.fill(delayedGain, 1f);
+        delayPosition = 0;
+        windowHead = 0;
+        windowSize = 0;
+        frameIndex = 0;
+        gain = 1f;
+        appliedGain = 1f;
+    }
+
+    // Limits frames of interleaved stereo from in into out. The output lags by the latency.
+    // in and out may be the same buffer at the same offset.
+    public void process(float[] in, int inOffset, float[] out, int outOffset, int frames) {
+        int capacity = windowIndex.length;
+        float applied = appliedGain;
+
+        for (int f = 0; f < frames; f++) {
+            float x0 = in[inOffset + NUM_CHANNELS * f];
+            float x1 = in[inOffset + NUM_CHANNELS * f + 1];
+            float peak = Math.max(Math.abs(x0), Math.abs(x1));
+            float needed = peak > ceiling ? ceiling / peak : 1f;
+
+            // Keep the window minimum at its head, the window spans this frame and the delayed ones
+            if (windowSize > 0 && windowIndex[windowHead] <= frameIndex - capacity) {
+                windowHead = (windowHead + 1) % capacity;
+                windowSize--;
+            }
+            while (windowSize > 0 && windowGain[(windowHead + windowSize - 1) % capacity] >= needed) windowSize--;
+            int tail = (windowHead + windowSize) % capacity;
+            windowIndex[tail] = frameIndex;
+            windowGain[tail] = needed;
+            windowSize++;
+            float target = windowGain[windowHead];
+
+            gain += (target - gain) * (target < gain ? attack : release);
+
+            // Swap the new frame in for the one leaving the delay
+            int d = NUM_CHANNELS * delayPosition;
+            float g = Math.min(gain, delayedGain[delayPosition]);
+            out[outOffset + NUM_CHANNELS * f] = delayed[d] * g;
+            out[outOffset + NUM_CHANNELS * f + 1] = delayed[d + 1] * g;
+            delayed[d] = x0;
+            delayed[d + 1] = x1;
+            delayedGain[delayPosition] = needed;
+            if (++delayPosition == lookahead) delayPosition = 0;
+            applied = g;
+
+            frameIndex++;
+        }
+        appliedGain = applied;
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.frequencyplayer;
+
+import android.util.Log;
+
+// Renders stereo blocks from a BlockSource on a dedicated thread and writes them straight
+// into an AudioSink. Nothing is written to disk and nothing is allocated per block. A sink
+// write error ends the render thread, playing again restarts it.
+public class StreamingPlaybackEngine implements PlaybackEngine {
+
+    public static final int DEFAULT_BLOCK_FRAMES = 512;
+    private static final int NUM_CHANNELS = 2;
+
+    private final AudioSink sink;
+    private final int blockFrames;
+    private final short[] block;
+
+    private volatile BlockSource source;
+    private volatile boolean running;
+    private volatile long framesRendered;
+    private Thread renderThread;
+    private boolean isReleased;
+
+    public StreamingPlaybackEngine(AudioSink sink) {
+        this(sink, DEFAULT_BLOCK_FRAMES);
+    }
+
+    public StreamingPlaybackEngine(AudioSink sink, int blockFrames) {
+        if (blockFrames <= 0) throw new IllegalArgumentException("Block size must be positive.");
+
+        this.sink = sink;
+        this.blockFrames = blockFrames;
+        this.block = new short[blockFrames * NUM_CHANNELS];
+    }
+
+    public int getBlockFrames() {
+        return blockFrames;
+    }
+
+    // Total number of frames handed to the sink since the engine was created.
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+
+    // Sets the source rendered by the next block. A running render thread picks it up at the
+    // next block boundary, so sources can be swapped without a gap.
+    public synchronized void setSource(BlockSource source) {
+        if (isReleased) throw new IllegalStateException("Engine has been released.");
+        if (source.getChannelCount() != NUM_CHANNELS) {
+            throw new IllegalArgumentException("Source must render " + NUM_CHANNELS + " channels.");
+        }
+        this.source = source;
+    }
+
+    @Override
+    public synchronized void play(BlockSource source) {
+        // A render thread that ended on a sink error is cleaned up, so the sink starts again
+        if (renderThread != null && !running) stop();
+        setSource(source);
+
+        if (renderThread == null) {
+            running = true;
+            sink.start();
+            renderThread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (running) {
+                        int written = pumpBlock();
+                        if (written <= 0) {
+                            // Spinning on a dead track would burn a core, wait for the next play instead
+                            Log.d("engine", "Sink write failed with " + written + ", stopping.");
+                            running = false;
+                        }
+                    }
+                }
+            }, "StreamingPlaybackEngine");
+            renderThread.setPriority(Thread.MAX_PRIORITY);
+            renderThread.start();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (renderThread == null) return;
+
+        running = false;
+        boolean interrupted = false;
+        while (renderThread.isAlive()) {
+            try {
+                renderThread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+
+        sink.stop();
+        renderThread = null;
+        source = null;
+    }
+
+    // False once stopped or after a sink write error ended the render thread.
+    @Override
+    public synchronized boolean isPlaying() {
+        return renderThread != null && running;
+    }
+
+    @Override
+    public synchronized void release() {
+        if (isReleased) return;
+
+        stop();
+        sink.release();
+        isReleased = true;
+    }
+
+    // Renders one block of the current source into the sink and returns the number of
+    // frames written, 0 without a source, or the sink's error code if it is negative. Only
+    // the render thread calls this while the engine is playing, but it can be driven directly
+    // after setSource() to run the engine headless.
+    public int pumpBlock() {
+        BlockSource current = source;
+        if (current == null) return 0;
+
+        current.render(block, 0, blockFrames);
+        int written = sink.write(block, 0, block.length);
+        if (written <= 0) return written;
+
+        written /= NUM_CHANNELS;
+        framesRendered += written;
+        return written;
+    }
+}
@@ -3,34 +3,52 @@ package com.example.frequencyplayer;
 import android.util.Pair;
 
 public class Util {
-    // Concatenates the given array to match exactly the given length, cutting if necessary
+    // Concatenates the given array to match exactly the given length, cutting if necessary.
+    // Prefer a LoopedBuffer when the copies are only read back in blocks.
     public static short[] concatTillLength( short[] src, int length){
         short[] buff = new short[length];
-        for (int i = 0; i < length; i++){
-            buff[i] = src[i % src.length];
-        }
+        repeat(src, src.length, 0, buff, 0, length);
         return buff;
     }
 
     // Concatenates the given array to match exactly the given length, cutting if necessary
     public static int[] concatTillLength( int[] src, int length){
         int[] dst = new int[length];
-        for (int i = 0; i < length; i++){
-            dst[i] = src[i % src.length];
-        }
+        repeat(src, src.length, 0, dst, 0, length);
+        return dst;
+    }
+
+    public static short[] concatNTimes(short[] src, int numTimes){
+        int length = src.length * numTimes;
+        short[] dst = new short[length];
+        repeat(src, src.length, 0, dst, 0, length);
         return dst;
     }
 
     public static int[] concatNTimes(int[] src, int numTimes){
         int length = src.length * numTimes;
         int[] dst = new int[length];
-        for (int i = 0; i < length; i++){
-            dst[i] = src[i % src.length];
-        }
+        repeat(src, src.length, 0, dst, 0, length);
         return dst;
     }
 
 
+    // Fills length elements of dst from dstOffset with period repeated, starting at element
+    // start of the period. Works for any primitive array type: one System.arraycopy per
+    // wraparound, the rest of the period first and then whole periods.
+    static void repeat(Object period, int periodLength, int start, Object dst, int dstOffset, int length){
+        if (periodLength <= 0 && length > 0) throw new IllegalArgumentException("Cannot repeat an empty period.");
+
+        int from = start;
+        while (length > 0) {
+            int count = Math.min(periodLength - from, length);
+            System.arraycopy(period, from, dst, dstOffset, count);
+            dstOffset += count;
+            length -= count;
+            from = 0;
+        }
+    }
+
     public static Pair<String, String> splitFileName(String fileName){
         String[] nameAndExt = fileName.split("\\.(?=[^\\.]+$)");
         Pair<String, String> pair = new Pair<String, String>(nameAndExt[0], nameAndExt[1]);
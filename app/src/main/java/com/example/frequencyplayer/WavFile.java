@@ -11,6 +11,13 @@ package com.example.frequencyplayer;
 // Version 1.0
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 public class WavFile
 {
@@ -22,12 +29,14 @@ public class WavFile
     private final static int RIFF_CHUNK_ID = 0x46464952;
     private final static int RIFF_TYPE_ID = 0x45564157;
 
-    private File file;					// File that will be read from or written to
+    private File file;					// File that will be read from or written to, null for streams
     private IOState ioState;			// Specifies the IO State of the Wav File (used for snaity checking)
     private int bytesPerSample;			// Number of bytes required to store a single sample
     private long numFrames;				// Number of frames within the data section
-    private FileOutputStream oStream;	// Output stream used for writing data
+    private OutputStream oStream;		// Output stream used for writing data
     private FileInputStream iStream;	// Input stream used for reading data
+    private MappedByteBuffer mappedData;	// Data chunk mapped into memory, replaces iStream when set
+    private ShortBuffer mappedShorts;		// Little endian 16 bit view of the mapped data chunk
     private double floatScale;			// Scaling factor used for int <-> float conversion
     private double floatOffset;			// Offset factor used for int <-> float conversion
     private boolean wordAlignAdjust;	// Specify if an extra byte at the end of the data chunk is required for word alignment
@@ -41,6 +50,7 @@ public class WavFile
 
     // Buffering
     private byte[] buffer;					// Local buffer used for IO
+    private ShortBuffer shortView;			// Little endian 16 bit view of the local buffer
     private int bufferPointer;				// Points to the current position in local buffer
     private int bytesRead;					// Bytes read after last read into local buffer
     private long frameCounter;				// Current number of frames read or written
@@ -49,6 +59,7 @@ public class WavFile
     private WavFile()
     {
         buffer = new byte[BUFFER_SIZE];
+        shortView = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer();
     }
 
     public int getNumChannels()
@@ -77,10 +88,38 @@ public class WavFile
     }
 
     public static WavFile newWavFile(File file, int numChannels, long numFrames, int validBits, long sampleRate) throws IOException, WavFileException
+    {
+        // Check the arguments before the file gets created
+        checkFormat(numChannels, numFrames, validBits, sampleRate);
+
+        WavFile wavFile = newWavFile(new FileOutputStream(file), numChannels, numFrames, validBits, sampleRate);
+        wavFile.file = file;
+        return wavFile;
+    }
+
+    // Writes the wav file into a channel, for example a pipe or a socket. close() closes the channel.
+    public static WavFile newWavFile(WritableByteChannel channel, int numChannels, long numFrames, int validBits, long sampleRate) throws IOException, WavFileException
+    {
+        return newWavFile(Channels.newOutputStream(channel), numChannels, numFrames, validBits, sampleRate);
+    }
+
+    // Writes the wav file into memory at the buffer's position. The buffer needs at least
+    // getFileSize() bytes remaining, its position ends up just after the file.
+    public static WavFile newWavFile(ByteBuffer target, int numChannels, long numFrames, int validBits, long sampleRate) throws IOException, WavFileException
+    {
+        checkFormat(numChannels, numFrames, validBits, sampleRate);
+
+        long fileSize = getFileSize(numChannels, numFrames, validBits);
+        if (target.remaining() < fileSize) throw new WavFileException("Target buffer has " + target.remaining() + " bytes left, need " + fileSize);
+
+        return newWavFile(new ByteBufferOutputStream(target), numChannels, numFrames, validBits, sampleRate);
+    }
+
+    // Writes the wav file into any output stream. close() closes the stream.
+    public static WavFile newWavFile(OutputStream outputStream, int numChannels, long numFrames, int validBits, long sampleRate) throws IOException, WavFileException
     {
         // Instantiate new Wavfile and initialise
         WavFile wavFile = new WavFile();
-        wavFile.file = file;
         wavFile.numChannels = numChannels;
         wavFile.numFrames = numFrames;
         wavFile.sampleRate = sampleRate;
@@ -89,13 +128,10 @@ public class WavFile
         wavFile.validBits = validBits;
 
         // Sanity check arguments
-        if (numChannels < 1 || numChannels > 65535) throw new WavFileException("Illegal number of channels, valid range 1 to 65536");
-        if (numFrames < 0) throw new WavFileException("Number of frames must be positive");
-        if (validBits < 2 || validBits > 65535) throw new WavFileException("Illegal number of valid bits, valid range 2 to 65536");
-        if (sampleRate < 0) throw new WavFileException("Sample rate must be positive");
+        checkFormat(numChannels, numFrames, validBits, sampleRate);
 
-        // Create output stream for writing data
-        wavFile.oStream = new FileOutputStream(file);
+        // Use the given output stream for writing data
+        wavFile.oStream = outputStream;
 
         // Calculate the chunk sizes
         long dataChunkSize = wavFile.blockAlign * numFrames;
@@ -170,6 +206,21 @@ public class WavFile
         return wavFile;
     }
 
+    private static void checkFormat(int numChannels, long numFrames, int validBits, long sampleRate) throws WavFileException
+    {
+        if (numChannels < 1 || numChannels > 65535) throw new WavFileException("Illegal number of channels, valid range 1 to 65536");
+        if (numFrames < 0) throw new WavFileException("Number of frames must be positive");
+        if (validBits < 2 || validBits > 65535) throw new WavFileException("Illegal number of valid bits, valid range 2 to 65536");
+        if (sampleRate < 0) throw new WavFileException("Sample rate must be positive");
+    }
+
+    // Total number of bytes newWavFile() writes for the given format, header included
+    public static long getFileSize(int numChannels, long numFrames, int validBits)
+    {
+        long dataChunkSize = ((validBits + 7) / 8) * numChannels * numFrames;
+        return 44 + dataChunkSize + (dataChunkSize % 2);
+    }
+
     public static WavFile openWavFile(File file) throws IOException, WavFileException
     {
         // Instantiate new Wavfile and store the file reference
@@ -304,6 +355,56 @@ public class WavFile
         return wavFile;
     }
 
+    // Opens a wav file for reading with its data chunk memory mapped instead of streamed. The
+    // header goes through the same validation as openWavFile(). readFrames() works as usual,
+    // and getDataBuffer() / getShortBuffer() expose the PCM without copying it.
+    public static WavFile openMappedWavFile(File file) throws IOException, WavFileException
+    {
+        // Parse the header from the stream, which leaves it positioned at the data chunk
+        WavFile wavFile = openWavFile(file);
+
+        try
+        {
+            long dataChunkSize = wavFile.numFrames * wavFile.blockAlign;
+            if (dataChunkSize > Integer.MAX_VALUE) throw new WavFileException("Data chunk is too large to be mapped");
+
+            FileChannel channel = wavFile.iStream.getChannel();
+            wavFile.mappedData = channel.map(FileChannel.MapMode.READ_ONLY, channel.position(), dataChunkSize);
+            wavFile.mappedData.order(ByteOrder.LITTLE_ENDIAN);
+            if (wavFile.bytesPerSample == 2) wavFile.mappedShorts = wavFile.mappedData.asShortBuffer();
+        }
+        finally
+        {
+            // The mapping stays valid once the file is closed
+            wavFile.iStream.close();
+            wavFile.iStream = null;
+        }
+
+        return wavFile;
+    }
+
+    public boolean isMapped()
+    {
+        return mappedData != null;
+    }
+
+    // Read only little endian view of the whole mapped data chunk, independent of read progress
+    public ByteBuffer getDataBuffer()
+    {
+        if (mappedData == null) throw new IllegalStateException("WavFile was not opened with openMappedWavFile()");
+
+        ByteBuffer view = mappedData.asReadOnlyBuffer();
+        view.clear();
+        return view.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Read only view of the mapped data chunk as interleaved 16 bit samples
+    public ShortBuffer getShortBuffer()
+    {
+        if (bytesPerSample != 2) throw new IllegalStateException("Short view requires 16 bit samples");
+        return getDataBuffer().asShortBuffer();
+    }
+
     // Get and Put little endian data from local buffer
     // ------------------------------------------------
     private static long getLE(byte[] buffer, int pos, int numBytes)
@@ -353,7 +454,7 @@ public class WavFile
         {
             if (bufferPointer == bytesRead)
             {
-                int read = iStream.read(buffer, 0, BUFFER_SIZE);
+                int read = readData(0, BUFFER_SIZE);
                 if (read == -1) throw new WavFileException("Not enough data available");
                 bytesRead = read;
                 bufferPointer = 0;
@@ -369,6 +470,123 @@ public class WavFile
         return val;
     }
 
+    // Short
+    // -----
+    // 16 bit PCM is copied block by block through a little endian view of the local buffer.
+    // Other sample sizes fall back to the generic per byte path.
+    public int readFrames(short[] sampleBuffer, int numFramesToRead) throws IOException, WavFileException
+    {
+        return readFrames(sampleBuffer, 0, numFramesToRead);
+    }
+
+    public int readFrames(short[] sampleBuffer, int offset, int numFramesToRead) throws IOException, WavFileException
+    {
+        if (ioState != IOState.READING) throw new IOException("Cannot read from WavFile instance");
+
+        int framesToRead = (int) Math.min(numFramesToRead, numFrames - frameCounter);
+        int samplesLeft = framesToRead * numChannels;
+
+        if (bytesPerSample != 2)
+        {
+            for (int s=0 ; s<samplesLeft ; s++) sampleBuffer[offset + s] = (short) readSample();
+            frameCounter += framesToRead;
+            return framesToRead;
+        }
+
+        // Mapped and nothing left in the local buffer, copy straight out of the mapping
+        if (mappedShorts != null && bufferPointer == bytesRead && (mappedData.position() & 1) == 0)
+        {
+            mappedShorts.position(mappedData.position() / 2);
+            mappedShorts.get(sampleBuffer, offset, samplesLeft);
+            mappedData.position(mappedData.position() + 2 * samplesLeft);
+
+            frameCounter += framesToRead;
+            return framesToRead;
+        }
+
+        while (samplesLeft > 0)
+        {
+            // The view can only start on an even byte, refill when misaligned or drained
+            if ((bufferPointer & 1) != 0 || bytesRead - bufferPointer < 2) refillBuffer();
+
+            int count = Math.min(samplesLeft, (bytesRead - bufferPointer) / 2);
+            shortView.position(bufferPointer / 2);
+            shortView.get(sampleBuffer, offset, count);
+
+            bufferPointer += 2 * count;
+            offset += count;
+            samplesLeft -= count;
+        }
+
+        frameCounter += framesToRead;
+        return framesToRead;
+    }
+
+    public int writeFrames(short[] sampleBuffer, int numFramesToWrite) throws IOException, WavFileException
+    {
+        return writeFrames(sampleBuffer, 0, numFramesToWrite);
+    }
+
+    public int writeFrames(short[] sampleBuffer, int offset, int numFramesToWrite) throws IOException, WavFileException
+    {
+        if (ioState != IOState.WRITING) throw new IOException("Cannot write to WavFile instance");
+
+        int framesToWrite = (int) Math.min(numFramesToWrite, numFrames - frameCounter);
+        int samplesLeft = framesToWrite * numChannels;
+
+        if (bytesPerSample != 2)
+        {
+            for (int s=0 ; s<samplesLeft ; s++) writeSample(sampleBuffer[offset + s]);
+            frameCounter += framesToWrite;
+            return framesToWrite;
+        }
+
+        while (samplesLeft > 0)
+        {
+            // Flush when full, or when the view cannot start on an even byte
+            if ((bufferPointer & 1) != 0 || BUFFER_SIZE - bufferPointer < 2)
+            {
+                oStream.write(buffer, 0, bufferPointer);
+                bufferPointer = 0;
+            }
+
+            int count = Math.min(samplesLeft, (BUFFER_SIZE - bufferPointer) / 2);
+            shortView.position(bufferPointer / 2);
+            shortView.put(sampleBuffer, offset, count);
+
+            bufferPointer += 2 * count;
+            offset += count;
+            samplesLeft -= count;
+        }
+
+        frameCounter += framesToWrite;
+        return framesToWrite;
+    }
+
+    // Reads data chunk bytes into the local buffer from the mapping or the stream, -1 at the end
+    private int readData(int pos, int numBytes) throws IOException
+    {
+        if (mappedData == null) return iStream.read(buffer, pos, numBytes);
+
+        int count = Math.min(numBytes, mappedData.remaining());
+        if (count == 0) return -1;
+        mappedData.get(buffer, pos, count);
+        return count;
+    }
+
+    // Moves any unread bytes to the start of the local buffer and tops it up from the stream
+    private void refillBuffer() throws IOException, WavFileException
+    {
+        int remaining = bytesRead - bufferPointer;
+        System.arraycopy(buffer, bufferPointer, buffer, 0, remaining);
+
+        int read = readData(remaining, BUFFER_SIZE - remaining);
+        if (read == -1) throw new WavFileException("Not enough data available");
+
+        bytesRead = remaining + read;
+        bufferPointer = 0;
+    }
+
     // Integer
     // -------
     public int readFrames(int[] sampleBuffer, int numFramesToRead) throws IOException, WavFileException
@@ -667,6 +885,10 @@ public class WavFile
             iStream = null;
         }
 
+        // Drop the mapping, it is unmapped once garbage collected
+        mappedData = null;
+        mappedShorts = null;
+
         if (oStream != null)
         {
             // Write out anything still in the local buffer
@@ -684,6 +906,31 @@ public class WavFile
         ioState = IOState.CLOSED;
     }
 
+    // Output stream writing into a fixed ByteBuffer, used for in memory encoding
+    private static class ByteBufferOutputStream extends OutputStream
+    {
+        private final ByteBuffer target;
+
+        ByteBufferOutputStream(ByteBuffer target)
+        {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException
+        {
+            if (!target.hasRemaining()) throw new IOException("Target buffer is full");
+            target.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException
+        {
+            if (target.remaining() < len) throw new IOException("Target buffer is full");
+            target.put(b, off, len);
+        }
+    }
+
     public void display()
     {
         display(System.out);
@@ -0,0 +1,39 @@
+package com.example.frequencyplayer;
+
+// Marsaglia xorshift32 generator. Three shifts and xors per number with no locking, unlike
+// java.util.Random, and the sequence only depends on the seed.
+public final class XorShiftRandom {
+
+    private static final float INT_TO_UNIT = 1f / (1 << 23);
+
+    private int state;
+
+    public XorShiftRandom(long seed) {
+        setSeed(seed);
+    }
+
+    // Any seed works, it is mixed so nearby seeds give unrelated sequences and never zero state.
+    public void setSeed(long seed) {
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+
+        int mixed = (int) (z ^ (z >>> 32));
+        state = mixed != 0 ? mixed : 0x6D2B79F5;
+    }
+
+    public int nextInt() {
+        int x = state;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        state = x;
+        return x;
+    }
+
+    // Uniform in [-1, 1) with 24 bits of resolution.
+    public float nextFloat() {
+        return (nextInt() >> 8) * INT_TO_UNIT;
+    }
+}
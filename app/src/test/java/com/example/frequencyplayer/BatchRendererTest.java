@@ -0,0 +1,138 @@
+package com.example.frequencyplayer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class BatchRendererTest {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readManifest_skipsCommentsAndDefaultsToBinaural() throws Exception {
+        List<BatchRenderer.Entry> entries = BatchRenderer.readManifest(new StringReader(
+                "# name frequency beat shift duration mode [technique]\n"
+                        + "\n"
+                        + "alpha 211.671346 10 180 1.5 double\n"
+                        + "  theta\t130.82 6.0 90 2 FIXED_Q15 isochronic  \n"));
+
+        assertEquals(2, entries.size());
+        assertEquals("alpha", entries.get(0).getName());
+        assertEquals(new BeatParameters(211.671346, 10.0, 180.0, BeatTechnique.BINAURAL), entries.get(0).getParameters());
+        assertEquals(1.5, entries.get(0).getDurationSec(), 0.0);
+        assertEquals(OscillatorMode.DOUBLE, entries.get(0).getMode());
+        assertEquals(BeatTechnique.ISOCHRONIC, entries.get(1).getParameters().getTechnique());
+        assertEquals(OscillatorMode.FIXED_Q15, entries.get(1).getMode());
+    }
+
+    @Test
+    public void readManifest_namesTheBadLine() throws Exception {
+        String[] bad = {"a 200 4 0 1", "a 200 4 0 one DOUBLE", "a 200 4 0 1 SQUARE", "a 200 4 0 0 DOUBLE"};
+        for (String line : bad) {
+            try {
+                BatchRenderer.readManifest(new StringReader("# header\nok 200 4 0 1 DOUBLE\n" + line + "\n"));
+                fail("Accepted " + line);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("Manifest line 3:"));
+            }
+        }
+    }
+
+    @Test
+    public void renderAll_writesEveryFileAndKeepsGoingPastFailures() throws Exception {
+        List<BatchRenderer.Entry> entries = BatchRenderer.readManifest(new StringReader(
+                "binaural 211.671346 10 180 1.0 DOUBLE\n"
+                        + "too_high 23990 20 0 1.0 DOUBLE\n"
+                        + "monaural 130.82 6 0 0.5 FIXED_Q15 MONAURAL\n"));
+        File directory = new File(folder.getRoot(), "library");
+        final List<String> finished = new ArrayList<String>();
+
+        BatchRenderer renderer = new BatchRenderer(directory, SAMPLE_RATE, false, new ForkJoinPool(2));
+        List<BatchRenderer.Result> results = renderer.renderAll(entries, new BatchRenderer.Listener() {
+            @Override
+            public void onRendered(BatchRenderer.Result result) {
+                synchronized (finished) {
+                    finished.add(result.getEntry().getName());
+                }
+            }
+        });
+
+        assertEquals(3, results.size());
+        assertEquals(3, finished.size());
+        assertTrue(results.get(0).isSuccess());
+        assertFalse(results.get(1).isSuccess());
+        assertTrue(results.get(1).getError() instanceof IllegalArgumentException);
+        assertFalse(new File(directory, "too_high.wav").exists());
+        assertTrue(results.get(2).isSuccess());
+
+        // Same samples as the source played live
+        for (int i : new int[]{0, 2}) {
+            BatchRenderer.Result result = results.get(i);
+            int frames = (int) result.getFrames();
+            assertEquals(Math.round(result.getEntry().getDurationSec() * SAMPLE_RATE), frames);
+            assertEquals(result.getBytes(), result.getFile().length());
+
+            BlockSource source = result.getEntry().getParameters().createSource(SAMPLE_RATE, result.getEntry().getMode());
+            if (source instanceof FloatBlockSource) source = new QuantizedSource((FloatBlockSource) source, false);
+            short[] expected = new short[2 * frames];
+            source.render(expected, 0, frames);
+
+            short[] actual = new short[2 * frames];
+            WavFile wavFile = WavFile.openWavFile(result.getFile());
+            wavFile.readFrames(actual, frames);
+            wavFile.close();
+            assertArrayEquals(result.getEntry().getName(), expected, actual);
+        }
+
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        assertFalse(BatchRenderer.printSummary(new PrintStream(printed), results, 1000000000L, 2, SAMPLE_RATE));
+        assertTrue(printed.toString(), printed.toString().startsWith("Rendered 2 of 3 files"));
+    }
+
+    @Test
+    public void renderAll_onPoolPrintsOneLinePerFileAndTheTotals() throws Exception {
+        StringBuilder manifest = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            manifest.append(String.format("session_%d %.4f %.1f 180 0.5 %s%n", i, 100.0 + 20 * i, 4.0 + i,
+                    i % 2 == 0 ? "DOUBLE" : "FIXED_Q15"));
+        }
+        List<BatchRenderer.Entry> entries = BatchRenderer.readManifest(new StringReader(manifest.toString()));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        List<BatchRenderer.Result> results;
+        try {
+            BatchRenderer renderer = new BatchRenderer(folder.newFolder("batch"), SAMPLE_RATE, true, pool);
+            results = renderer.renderAll(entries, null);
+        } finally {
+            pool.shutdown();
+        }
+
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(printed);
+        for (BatchRenderer.Result result : results) BatchRenderer.printResult(out, result, SAMPLE_RATE);
+        assertTrue(BatchRenderer.printSummary(out, results, 1000000000L, 4, SAMPLE_RATE));
+        out.flush();
+
+        String[] lines = printed.toString().split("\\r?\\n");
+        assertEquals(10, lines.length);
+        for (int i = 0; i < 8; i++) {
+            assertTrue(lines[i], lines[i].startsWith("session_" + i + ".wav: 24000 frames"));
+        }
+        assertTrue(lines[8], lines[8].startsWith("Rendered 8 of 8 files"));
+        assertTrue(lines[8], lines[8].endsWith("on 4 threads"));
+        assertTrue(lines[9], lines[9].startsWith("Aggregate: "));
+    }
+}
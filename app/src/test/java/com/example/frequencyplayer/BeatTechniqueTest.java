@@ -0,0 +1,100 @@
+package com.example.frequencyplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BeatTechniqueTest {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    private static short[] render(BlockSource source, int frames, int blockFrames) {
+        short[] out = new short[2 * frames];
+        for (int f = 0; f < frames; f += blockFrames) {
+            source.render(out, 2 * f, Math.min(blockFrames, frames - f));
+        }
+        return out;
+    }
+
+    @Test
+    public void createSource_picksGeneratorByTechnique() {
+        BeatParameters binaural = new BeatParameters(211.671346, 4.0, 180.0, BeatTechnique.BINAURAL);
+        assertTrue(binaural.createSource(SAMPLE_RATE, OscillatorMode.DOUBLE) instanceof BinauralSource);
+        assertTrue(binaural.withTechnique(BeatTechnique.ISOCHRONIC).createSource(SAMPLE_RATE, OscillatorMode.DOUBLE)
+                instanceof IsochronicSource);
+        assertTrue(binaural.withTechnique(BeatTechnique.MONAURAL).createSource(SAMPLE_RATE, OscillatorMode.DOUBLE)
+                instanceof MonauralSource);
+
+        assertEquals(binaural, new BeatParameters(211.671346, 4.0, 180.0, BeatTechnique.BINAURAL));
+        assertEquals(binaural.hashCode(), new BeatParameters(211.671346, 4.0, 180.0, BeatTechnique.BINAURAL).hashCode());
+        assertNotEquals(binaural, binaural.withTechnique(BeatTechnique.MONAURAL));
+
+        assertArrayEquals(render(new BinauralSource(SAMPLE_RATE, 211.671346, 4.0, 180.0), 1000, 1000),
+                render(binaural.createSource(SAMPLE_RATE, OscillatorMode.DOUBLE), 1000, 1000));
+    }
+
+    @Test
+    public void everyTechnique_streamsTheSameAtAnyBlockSize() {
+        for (BeatTechnique technique : BeatTechnique.values()) {
+            for (OscillatorMode mode : OscillatorMode.values()) {
+                BeatParameters parameters = new BeatParameters(130.8200863, 7.0, 90.0, technique);
+                short[] whole = render(parameters.createSource(SAMPLE_RATE, mode), SAMPLE_RATE, SAMPLE_RATE);
+                assertArrayEquals(technique + " " + mode, whole,
+                        render(parameters.createSource(SAMPLE_RATE, mode), SAMPLE_RATE, 333));
+            }
+        }
+    }
+
+    @Test
+    public void isochronic_gatesCarrierWithSmoothEdges() {
+        int frames = SAMPLE_RATE;
+        short[] out = render(new IsochronicSource(SAMPLE_RATE, 440.0, 4.0, 0.0), frames, 512);
+
+        short[] carrier = new short[frames];
+        new SinSynth(SAMPLE_RATE, 440.0).render(carrier, 0, frames);
+
+        int period = SAMPLE_RATE / 4;
+        int edge = (int) (IsochronicSource.MAX_EDGE_SEC * SAMPLE_RATE);
+        int maxCarrierStep = 0;
+        int maxStep = 0;
+        for (int f = 0; f < frames; f++) {
+            assertEquals(out[2 * f], out[2 * f + 1]);
+
+            int inPeriod = f % period;
+            if (inPeriod >= period / 2) {
+                assertEquals("Closed at " + f, 0, out[2 * f]);
+            } else if (inPeriod > edge && inPeriod < period / 2 - edge) {
+                assertEquals("Open at " + f, carrier[f], out[2 * f]);
+            }
+
+            if (f > 0) {
+                maxCarrierStep = Math.max(maxCarrierStep, Math.abs(carrier[f] - carrier[f - 1]));
+                maxStep = Math.max(maxStep, Math.abs(out[2 * f] - out[2 * (f - 1)]));
+            }
+        }
+
+        // Opening and closing add no jumps beyond the carrier's own slope
+        assertTrue("Step " + maxStep, maxStep <= maxCarrierStep + 1);
+    }
+
+    @Test
+    public void monaural_sumsBothTonesOnBothChannels() {
+        int frames = 10000;
+        short[] out = render(new MonauralSource(SAMPLE_RATE, 200.0, 10.0, 0.0), frames, 512);
+
+        double peakEarly = 0;
+        double peakAtCancel = 0;
+        for (int f = 0; f < frames; f++) {
+            assertEquals(out[2 * f], out[2 * f + 1]);
+            double expected = 0.5 * 32767 * (Math.sin(2 * Math.PI * 200.0 * f / SAMPLE_RATE)
+                    + Math.sin(2 * Math.PI * 210.0 * f / SAMPLE_RATE));
+            assertEquals(expected, out[2 * f], 2.0);
+
+            // The tones are in phase at the start and cancel half a beat later
+            if (f < 240) peakEarly = Math.max(peakEarly, Math.abs(out[2 * f]));
+            if (Math.abs(f - SAMPLE_RATE / 20) < 120) peakAtCancel = Math.max(peakAtCancel, Math.abs(out[2 * f]));
+        }
+        assertTrue(peakEarly > 30000);
+        assertTrue(peakAtCancel < 3000);
+    }
+}
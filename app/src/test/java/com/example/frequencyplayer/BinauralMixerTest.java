@@ -0,0 +1,132 @@
+package com.example.frequencyplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BinauralMixerTest {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    @Test
+    public void render_appliesGainAndBalanceBelowCeiling() {
+        BinauralMixer mixer = new BinauralMixer(SAMPLE_RATE, 256);
+        mixer.addVoice(new BinauralSource(SAMPLE_RATE, 211.671346, 4.0, 180.0), 0.5, 0.0);
+        BinauralMixer.Voice panned = mixer.addVoice(new BinauralSource(SAMPLE_RATE, 130.8200863, 7.0, 90.0), 0.25, 1.0);
+        int latency = mixer.getLimiter().getLatencyFrames();
+        int frames = 1000;
+
+        short[] out = new short[2 * frames];
+        mixer.render(out, 0, frames);
+
+        short[] a = new short[2 * frames];
+        short[] b = new short[2 * frames];
+        new BinauralSource(SAMPLE_RATE, 211.671346, 4.0, 180.0).render(a, 0, frames);
+        new BinauralSource(SAMPLE_RATE, 130.8200863, 7.0, 90.0).render(b, 0, frames);
+
+        // 0.75 of full scale stays under the ceiling, the mix only lags by the lookahead. The voices
+        // are mixed in float, a and b are rounded to 16 bit first, hence the 1 LSB tolerance.
+        for (int f = 0; f < latency; f++) assertEquals(0, out[2 * f]);
+        for (int f = latency; f < frames; f++) {
+            int s = f - latency;
+            assertEquals(Math.round(a[2 * s] * 0.5f), out[2 * f], 1);
+            assertEquals(Math.round(a[2 * s + 1] * 0.5f + b[2 * s + 1] * 0.25f), out[2 * f + 1], 1);
+        }
+        assertEquals(1f, mixer.getLimiter().getGain(), 0f);
+        assertEquals(1.0, panned.getPan(), 0.0);
+
+        assertTrue(mixer.removeVoice(panned));
+        assertFalse(mixer.removeVoice(panned));
+        assertEquals(1, mixer.getVoiceCount());
+    }
+
+    @Test
+    public void limiter_keepsPeaksUnderCeilingWithoutSteps() {
+        BinauralMixer mixer = new BinauralMixer(SAMPLE_RATE, 512);
+        for (int v = 0; v < 8; v++) {
+            mixer.addVoice(new BinauralSource(SAMPLE_RATE, 100.0 + 37.0 * v, 4.0 + v, 45.0 * v), 1.0, 0.0);
+        }
+
+        // One frame at a time, so the gain is seen on every frame
+        short ceiling = (short) Math.round(SoftLimiter.DEFAULT_CEILING * 32767);
+        short[] out = new short[2];
+        float minGain = 1f;
+        float maxGainStep = 0f;
+        float previousGain = 1f;
+        int peak = 0;
+        for (int f = 0; f < 100 * 512; f++) {
+            mixer.render(out, 0, 1);
+            peak = Math.max(peak, Math.max(Math.abs(out[0]), Math.abs(out[1])));
+
+            float gain = mixer.getLimiter().getGain();
+            minGain = Math.min(minGain, gain);
+            maxGainStep = Math.max(maxGainStep, Math.abs(gain - previousGain));
+            previousGain = gain;
+        }
+
+        assertTrue("Peak " + peak, peak <= ceiling + 1);
+        assertTrue("Gain " + minGain, minGain < 0.5f);
+
+        // The applied gain glides down over the 2 ms lookahead, about 5 % of the way per frame at
+        // most, where clipping to the ceiling would step by more than half
+        assertTrue("Gain step " + maxGainStep, maxGainStep < 0.05f);
+    }
+
+    @Test
+    public void limiter_reportsTheGainItApplied() {
+        // Loud sines starting after silence, so the limiter both attacks and holds
+        SoftLimiter limiter = new SoftLimiter(SAMPLE_RATE);
+        int latency = limiter.getLatencyFrames();
+        int frames = 4800;
+        float[] in = new float[2 * frames];
+        for (int f = 1000; f < frames; f++) {
+            in[2 * f] = (float) (3.0 * Math.sin(2 * Math.PI * 211.0 * f / SAMPLE_RATE));
+            in[2 * f + 1] = (float) (2.0 * Math.cos(2 * Math.PI * 215.0 * f / SAMPLE_RATE));
+        }
+
+        float[] out = new float[2];
+        for (int f = 0; f < frames; f++) {
+            limiter.process(in, 2 * f, out, 0, 1);
+            int source = f - latency;
+            if (source < 0) continue;
+
+            float x = Math.abs(in[2 * source]) > Math.abs(in[2 * source + 1]) ? in[2 * source] : in[2 * source + 1];
+            float y = Math.abs(in[2 * source]) > Math.abs(in[2 * source + 1]) ? out[0] : out[1];
+            if (Math.abs(x) > 0.1f) assertEquals("Frame " + f, y / x, limiter.getGain(), 1e-5f);
+        }
+        assertTrue(limiter.getGain() < 0.5f);
+    }
+
+    @Test
+    public void limiter_reachesTheGainBeforeThePeak() {
+        // A single full scale click after silence
+        SoftLimiter limiter = new SoftLimiter(SAMPLE_RATE, 0.5, 0.002, 0.05);
+        int frames = 400;
+        float[] in = new float[2 * frames];
+        in[2 * 200] = 1f;
+        in[2 * 200 + 1] = -1f;
+        float[] out = new float[2 * frames];
+        limiter.process(in, 0, out, 0, frames);
+
+        int click = 200 + limiter.getLatencyFrames();
+        assertEquals(0.5f, out[2 * click], 1e-4f);
+        assertEquals(-0.5f, out[2 * click + 1], 1e-4f);
+    }
+
+    @Test
+    public void render_allocatesNothingPerBlock() {
+        BinauralMixer mixer = new BinauralMixer(SAMPLE_RATE, 512);
+        for (int v = 0; v < 4; v++) {
+            mixer.addVoice(new BinauralSource(SAMPLE_RATE, Ramp.linear(100.0 + v, 300.0, 1.0), Ramp.constant(5.0),
+                    0.0, OscillatorMode.FIXED_Q15), 0.5, 0.5 - v / 3.0);
+        }
+        short[] out = new short[2 * 512];
+        mixer.render(out, 0, 512);
+
+        long before = ThreadAllocation.bytes();
+        for (int block = 0; block < 1000; block++) {
+            mixer.render(out, 0, 512);
+        }
+        ThreadAllocation.assertNoneSince(before);
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.frequencyplayer;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.*;
+
+public class BinauralTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        Binaural.clearBuffers();
+        Binaural.getRenderCache().clear();
+    }
+
+    @Test
+    public void generateBuffers_interleavesBothChannels() {
+        Binaural.setSampleRate(48000);
+        Binaural.generateBuffers(1000.0, 10.0, 0.0, 1.0);
+
+        short[] stereo = Binaural.getStereoBuffer().getSamples();
+        int numFrames = Binaural.getNumFrames();
+        assertEquals(2 * numFrames, stereo.length);
+
+        // 1000 Hz and 1010 Hz both close after 0.1 s, so one second holds ten whole loops
+        int loopFrames = LoopPlanner.plan(48000, 1000.0, 10.0).getNumFrames();
+        assertEquals(0, loopFrames % 48);
+        assertEquals(0, numFrames % loopFrames);
+        assertTrue(numFrames > 48000 - loopFrames);
+        for (int f = 0; f + loopFrames < numFrames; f += 997) {
+            assertEquals(stereo[2 * f], stereo[2 * (f + loopFrames)]);
+            assertEquals(stereo[2 * f + 1], stereo[2 * (f + loopFrames) + 1]);
+        }
+        for (int f = 0; f < numFrames; f += 48) {
+            assertEquals(stereo[0], stereo[2 * f]);
+        }
+    }
+
+    @Test
+    public void generateBuffers_loopsWithoutJumpOnEitherChannel() {
+        Binaural.setSampleRate(48000);
+        Binaural.generateBuffers(211.671346, 4.0, 180.0, 1.0);
+
+        short[] stereo = Binaural.getStereoBuffer().getSamples();
+        int numFrames = Binaural.getNumFrames();
+
+        // Wrapping from the last frame to the first steps like anywhere else, on both channels
+        for (int c = 0; c < 2; c++) {
+            int seamStep = Math.abs(stereo[c] - stereo[2 * (numFrames - 1) + c]);
+            int maxStep = 0;
+            for (int f = 1; f < numFrames; f++) {
+                maxStep = Math.max(maxStep, Math.abs(stereo[2 * f + c] - stereo[2 * (f - 1) + c]));
+            }
+            assertTrue("Seam step " + seamStep + " on channel " + c, seamStep <= maxStep + 1);
+        }
+    }
+
+    @Test
+    public void writeWaveFile_writesOneStereoFile() throws Exception {
+        Binaural.setSampleRate(48000);
+        Binaural.generateBuffers(211.671346, 4.0, 180.0, 1.0);
+        short[] stereo = Binaural.getStereoBuffer().getSamples();
+        int numFrames = Binaural.getNumFrames();
+
+        File file = folder.newFile("binaural.wav");
+        Binaural.writeWaveFile(file);
+
+        // 44 byte header plus 2 bytes per sample for both channels, nothing else
+        assertEquals(44 + 4L * numFrames, file.length());
+
+        WavFile wavFile = WavFile.openWavFile(file);
+        assertEquals(2, wavFile.getNumChannels());
+        assertEquals(numFrames, wavFile.getNumFrames());
+
+        short[] read = new short[2 * numFrames];
+        assertEquals(numFrames, wavFile.readFrames(read, numFrames));
+        wavFile.close();
+
+        assertArrayEquals(stereo, read);
+    }
+
+    @Test
+    public void encodeWave_matchesFileWithoutTouchingDisk() throws Exception {
+        Binaural.setSampleRate(48000);
+        Binaural.generateBuffers(130.8200863, 7.0, 90.0, 0.5);
+
+        File file = folder.newFile("reference.wav");
+        Binaural.writeWaveFile(file);
+        byte[] fileBytes = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+        assertEquals(fileBytes.length, in.read(fileBytes));
+        in.close();
+
+        ByteBuffer encoded = Binaural.encodeWave();
+        assertEquals(0, encoded.position());
+        byte[] encodedBytes = new byte[encoded.remaining()];
+        encoded.get(encodedBytes);
+        assertArrayEquals(fileBytes, encodedBytes);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        Binaural.writeWave(stream);
+        assertArrayEquals(fileBytes, stream.toByteArray());
+    }
+
+    @Test
+    public void generateLoop_rendersPlannedLoopForBothChannels() {
+        Binaural.setSampleRate(48000);
+        LoopPlan plan = Binaural.generateLoop(211.671346, 4.0, 180.0);
+
+        int numFrames = Binaural.getNumFrames();
+        short[] stereo = Binaural.getStereoBuffer().getSamples();
+        assertEquals(plan.getNumFrames(), numFrames);
+        assertEquals(2 * numFrames, stereo.length);
+
+        // Both channels step across the seam like anywhere else in the loop
+        for (int c = 0; c < 2; c++) {
+            int seamStep = Math.abs(stereo[c] - stereo[2 * (numFrames - 1) + c]);
+            int maxStep = 0;
+            for (int f = 1; f < numFrames; f++) {
+                maxStep = Math.max(maxStep, Math.abs(stereo[2 * f + c] - stereo[2 * (f - 1) + c]));
+            }
+            assertTrue("Seam step " + seamStep + " on channel " + c, seamStep <= maxStep + 1);
+        }
+
+        // Same parameters reuse the buffer and the plan
+        assertSame(plan, Binaural.generateLoop(211.671346, 4.0, 180.0));
+        assertSame(stereo, Binaural.getStereoBuffer().getSamples());
+
+        // Rendering the loop again after it left the cache does not plan it again
+        Binaural.getRenderCache().clear();
+        assertSame(plan, Binaural.generateLoop(211.671346, 4.0, 180.0));
+        assertEquals(numFrames, Binaural.getNumFrames());
+    }
+
+    @Test
+    public void generateLoop_switchingPresetsHitsRenderCache() {
+        Binaural.setSampleRate(48000);
+        RenderCache cache = Binaural.getRenderCache();
+        long misses = cache.getMissCount();
+
+        Binaural.generateLoop(211.671346, 4.0, 180.0);
+        Pcm16Buffer first = Binaural.getStereoBuffer();
+        Binaural.generateLoop(342.4914324, 4.0, 180.0);
+        Pcm16Buffer second = Binaural.getStereoBuffer();
+        assertEquals(misses + 2, cache.getMissCount());
+
+        long hits = cache.getHitCount();
+        Binaural.generateLoop(211.671346, 4.0, 180.0);
+        assertSame(first, Binaural.getStereoBuffer());
+        Binaural.generateLoop(342.4914324, 4.0, 180.0);
+        assertSame(second, Binaural.getStereoBuffer());
+        assertEquals(hits + 2, cache.getHitCount());
+
+        // A different oscillator is a different render
+        Binaural.setOscillatorMode(OscillatorMode.FIXED_Q15);
+        try {
+            Binaural.generateLoop(211.671346, 4.0, 180.0);
+            assertNotSame(first, Binaural.getStereoBuffer());
+        } finally {
+            Binaural.setOscillatorMode(OscillatorMode.DOUBLE);
+        }
+    }
+
+    @Test
+    public void getCachedLoopBuffer_neverRenders() {
+        Binaural.setSampleRate(48000);
+        long misses = Binaural.getRenderCache().getMissCount();
+        assertNull(Binaural.getCachedLoopBuffer(1000.0, 10.0, 0.0));
+        assertEquals(0, Binaural.getRenderCache().size());
+
+        Binaural.obtainLoopBuffer(1000.0, 10.0, 0.0);
+        assertEquals(misses + 2, Binaural.getRenderCache().getMissCount());
+        assertNotNull(Binaural.getCachedLoopBuffer(1000.0, 10.0, 0.0));
+    }
+
+    @Test
+    public void getCachedLoopBuffer_skipsLoopsOffPitch() {
+        Binaural.setSampleRate(48000);
+
+        // 1000 Hz and 10 Hz close exactly, 211.671346 Hz snaps by about 0.03 Hz within a 4 Hz beat
+        RenderKey exact = RenderKey.forLoop(1000.0, 10.0, 0.0, Binaural.getLoopTolerance(), 48000, Binaural.getOscillatorMode());
+        RenderKey off = RenderKey.forLoop(211.671346, 4.0, 180.0, Binaural.getLoopTolerance(), 48000, Binaural.getOscillatorMode());
+        assertTrue(Binaural.isLoopPlayable(exact));
+        assertFalse(Binaural.isLoopPlayable(off));
+
+        Binaural.obtainLoopBuffer(211.671346, 4.0, 180.0);
+        assertNull(Binaural.getCachedLoopBuffer(211.671346, 4.0, 180.0));
+    }
+
+    @Test
+    public void isLoopPlayable_coversThePresets() {
+        Binaural.setSampleRate(48000);
+        for (RenderKey key : PresetWarmup.presetKeys(1.0, 180.0)) {
+            assertTrue(key.toString(), Binaural.isLoopPlayable(key));
+        }
+    }
+
+    @Test
+    public void prerenderLoop_fillsCacheOnExecutor() {
+        Binaural.setSampleRate(48000);
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+        Executor executor = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                tasks.add(command);
+            }
+        };
+
+        assertFalse(Binaural.prerenderLoop(211.671346, 4.0, 180.0, executor));
+        assertTrue(Binaural.prerenderLoop(1000.0, 10.0, 0.0, executor));
+        assertEquals(1, tasks.size());
+        assertNull(Binaural.getCachedLoopBuffer(1000.0, 10.0, 0.0));
+
+        tasks.get(0).run();
+        assertNotNull(Binaural.getCachedLoopBuffer(1000.0, 10.0, 0.0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void writeWaveFile_requiresBuffers() throws Exception {
+        Binaural.clearBuffers();
+        Binaural.writeWaveFile(folder.newFile("empty.wav"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.frequencyplayer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class ChunkedRendererTest {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    @After
+    public void tearDown() {
+        Binaural.setRenderPool(null);
+        Binaural.getRenderCache().clear();
+    }
+
+    private static short[] sine(ChunkedRenderer renderer, OscillatorMode mode, int frames) {
+        short[] out = new short[2 * frames];
+        renderer.renderSine(SAMPLE_RATE, 211.671346, 0.0, mode, out, 0, frames, 2);
+        renderer.renderSine(SAMPLE_RATE, 215.671346, 180.0, mode, out, 1, frames, 2);
+        return out;
+    }
+
+    @Test
+    public void skip_landsWhereRenderingWould() {
+        SinSynth rendered = new SinSynth(SAMPLE_RATE, 440.0, 90.0, OscillatorMode.FIXED_Q15);
+        rendered.render(new short[12345], 0, 12345);
+        SinSynth skipped = new SinSynth(SAMPLE_RATE, 440.0, 90.0, OscillatorMode.FIXED_Q15);
+        skipped.skip(12345);
+        assertEquals(rendered.getPhase(), skipped.getPhase(), 0.0);
+
+        rendered = new SinSynth(SAMPLE_RATE, 440.0, 90.0);
+        rendered.render(new short[12345], 0, 12345);
+        skipped = new SinSynth(SAMPLE_RATE, 440.0, 90.0);
+        skipped.skip(12345);
+        assertEquals(rendered.getPhase(), skipped.getPhase(), 0.0);
+    }
+
+    @Test
+    public void renderSine_matchesContinuousSynth() {
+        int frames = 100003;
+        for (OscillatorMode mode : OscillatorMode.values()) {
+            short[] continuous = new short[frames];
+            new SinSynth(SAMPLE_RATE, 211.671346, 0.0, mode).render(continuous, 0, frames);
+
+            // Both phases are integers, so the chunk size never shows in the output
+            for (int chunkFrames : new int[]{1, 441, 4096, ChunkedRenderer.DEFAULT_CHUNK_FRAMES}) {
+                short[] chunked = new short[frames];
+                new ChunkedRenderer(null, chunkFrames).renderSine(SAMPLE_RATE, 211.671346, 0.0, mode, chunked, 0, frames, 1);
+                assertArrayEquals(mode + " in chunks of " + chunkFrames, continuous, chunked);
+            }
+
+            float[] continuousFloat = new float[frames];
+            new SinSynth(SAMPLE_RATE, 211.671346, 0.0, mode).render(continuousFloat, 0, frames);
+            SinSynth skipped = new SinSynth(SAMPLE_RATE, 211.671346, 0.0, mode);
+            skipped.skip(frames - 1000);
+            float[] tail = new float[1000];
+            skipped.render(tail, 0, 1000);
+            for (int i = 0; i < tail.length; i++) {
+                assertEquals(continuousFloat[frames - 1000 + i], tail[i], 0.0f);
+            }
+        }
+    }
+
+    @Test
+    public void parallel_isBitIdenticalToSerial() {
+        int frames = 10 * SAMPLE_RATE + 17;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (OscillatorMode mode : OscillatorMode.values()) {
+                for (int chunkFrames : new int[]{1000, 4099, ChunkedRenderer.DEFAULT_CHUNK_FRAMES}) {
+                    assertArrayEquals(sine(new ChunkedRenderer(null, chunkFrames), mode, frames),
+                            sine(new ChunkedRenderer(pool, chunkFrames), mode, frames));
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void binaural_rendersTheSameWithAndWithoutPool() {
+        RenderKey loop = RenderKey.forLoop(0.657370768, 1.0, 180.0, 0.01, SAMPLE_RATE, OscillatorMode.DOUBLE);
+        RenderKey duration = RenderKey.forDuration(49.96882653, 4.0, 90.0, 30.0, SAMPLE_RATE, OscillatorMode.FIXED_Q15);
+        short[] serialLoop = Binaural.render(loop).getSamples();
+        short[] serialDuration = Binaural.render(duration).getSamples();
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Binaural.setRenderPool(pool);
+            assertTrue(Binaural.getRenderer().isParallel());
+            assertArrayEquals(serialLoop, Binaural.render(loop).getSamples());
+            assertArrayEquals(serialDuration, Binaural.render(duration).getSamples());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallel_matchesSerialOnEveryPoolSize() {
+        int frames = 60 * SAMPLE_RATE;
+        short[] reference = sine(ChunkedRenderer.serial(), OscillatorMode.DOUBLE, frames);
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= 2 * cores; threads *= 2) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                ChunkedRenderer parallel = new ChunkedRenderer(pool, ChunkedRenderer.DEFAULT_CHUNK_FRAMES);
+                assertArrayEquals(threads + " threads", reference, sine(parallel, OscillatorMode.DOUBLE, frames));
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+}
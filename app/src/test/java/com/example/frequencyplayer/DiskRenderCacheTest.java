@@ -0,0 +1,154 @@
+package com.example.frequencyplayer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class DiskRenderCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static RenderKey loopKey(double frequency) {
+        return RenderKey.forLoop(frequency, 4.0, 180.0, 0.01, 48000, OscillatorMode.DOUBLE);
+    }
+
+    private static long entryBytes(int frames) {
+        return WavFile.getFileSize(2, frames, 16);
+    }
+
+    @Test
+    public void get_returnsBufferAcrossInstances() throws Exception {
+        File directory = folder.newFolder("renders");
+        Pcm16Buffer buffer = Binaural.render(loopKey(211.671346));
+
+        DiskRenderCache cache = new DiskRenderCache(directory, 1 << 20);
+        assertNull(cache.get(loopKey(211.671346)));
+        cache.put(loopKey(211.671346), buffer);
+        assertEquals(1, cache.size());
+
+        // A new instance stands for a cold start of the app
+        DiskRenderCache reopened = new DiskRenderCache(directory, 1 << 20);
+        assertEquals(1, reopened.size());
+        assertEquals(cache.getSizeBytes(), reopened.getSizeBytes());
+        assertArrayEquals(buffer.getSamples(), reopened.get(loopKey(211.671346)).getSamples());
+        assertEquals(1, reopened.getHitCount());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedFilesWithinBudget() throws Exception {
+        File directory = folder.newFolder("renders");
+        DiskRenderCache cache = new DiskRenderCache(directory, 3 * entryBytes(1000));
+        cache.put(loopKey(1.0), new Pcm16Buffer(2, 1000));
+        cache.put(loopKey(2.0), new Pcm16Buffer(2, 1000));
+        cache.put(loopKey(3.0), new Pcm16Buffer(2, 1000));
+
+        // Use the oldest entry so the second one is evicted next
+        assertNotNull(cache.get(loopKey(1.0)));
+        cache.put(loopKey(4.0), new Pcm16Buffer(2, 1000));
+
+        assertEquals(1, cache.getEvictionCount());
+        assertTrue(cache.contains(loopKey(1.0)));
+        assertFalse(cache.contains(loopKey(2.0)));
+        assertFalse(new File(directory, DiskRenderCache.hash(loopKey(2.0)) + ".wav").exists());
+
+        // Recency survives a restart
+        DiskRenderCache reopened = new DiskRenderCache(directory, 3 * entryBytes(1000));
+        reopened.put(loopKey(5.0), new Pcm16Buffer(2, 1000));
+        assertFalse(reopened.contains(loopKey(3.0)));
+        assertTrue(reopened.contains(loopKey(1.0)));
+        assertTrue(reopened.getSizeBytes() <= reopened.getMaxBytes());
+    }
+
+    @Test
+    public void get_defersRecencyToFlush() throws Exception {
+        File directory = folder.newFolder("renders");
+        DiskRenderCache cache = new DiskRenderCache(directory, 2 * entryBytes(1000));
+        cache.put(loopKey(1.0), new Pcm16Buffer(2, 1000));
+        cache.put(loopKey(2.0), new Pcm16Buffer(2, 1000));
+
+        // A hit leaves the index file alone
+        File index = new File(directory, "index");
+        long modified = index.lastModified();
+        long length = index.length();
+        assertTrue(index.setLastModified(modified - 10000));
+        assertNotNull(cache.get(loopKey(1.0)));
+        assertEquals(modified - 10000, index.lastModified());
+        assertEquals(length, index.length());
+
+        // Until it is flushed, after which a restart evicts the other entry first
+        cache.flush();
+        DiskRenderCache reopened = new DiskRenderCache(directory, 2 * entryBytes(1000));
+        reopened.put(loopKey(3.0), new Pcm16Buffer(2, 1000));
+        assertTrue(reopened.contains(loopKey(1.0)));
+        assertFalse(reopened.contains(loopKey(2.0)));
+    }
+
+    @Test
+    public void readIndex_dropsMissingAndUnknownFiles() throws Exception {
+        File directory = folder.newFolder("renders");
+        DiskRenderCache cache = new DiskRenderCache(directory, 1 << 20);
+        cache.put(loopKey(1.0), new Pcm16Buffer(2, 100));
+        cache.put(loopKey(2.0), new Pcm16Buffer(2, 100));
+
+        assertTrue(new File(directory, DiskRenderCache.hash(loopKey(1.0)) + ".wav").delete());
+        File stray = new File(directory, "stray.wav");
+        FileWriter writer = new FileWriter(stray);
+        writer.write("junk");
+        writer.close();
+
+        DiskRenderCache reopened = new DiskRenderCache(directory, 1 << 20);
+        assertFalse(reopened.contains(loopKey(1.0)));
+        assertTrue(reopened.contains(loopKey(2.0)));
+        assertEquals(entryBytes(100), reopened.getSizeBytes());
+        assertFalse(stray.exists());
+    }
+
+    @Test
+    public void get_dropsCorruptEntries() throws Exception {
+        File directory = folder.newFolder("renders");
+        DiskRenderCache cache = new DiskRenderCache(directory, 1 << 20);
+        cache.put(loopKey(1.0), new Pcm16Buffer(2, 100));
+
+        // Same length, broken header
+        File file = new File(directory, DiskRenderCache.hash(loopKey(1.0)) + ".wav");
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.write(new byte[4]);
+        raf.close();
+
+        assertNull(cache.get(loopKey(1.0)));
+        assertFalse(cache.contains(loopKey(1.0)));
+        assertEquals(0, cache.getSizeBytes());
+    }
+
+    @Test
+    public void binaural_coldStartReadsInsteadOfRendering() throws Exception {
+        File directory = folder.newFolder("renders");
+        Binaural.setSampleRate(48000);
+        try {
+            Binaural.setDiskCache(new DiskRenderCache(directory, 1 << 24));
+            Binaural.generateLoop(49.96882653, 1.0, 180.0);
+            short[] rendered = Binaural.getStereoBuffer().getSamples();
+
+            // Forget everything held in memory, as after a restart
+            Binaural.clearBuffers();
+            Binaural.getRenderCache().clear();
+            DiskRenderCache reopened = new DiskRenderCache(directory, 1 << 24);
+            Binaural.setDiskCache(reopened);
+
+            Binaural.generateLoop(49.96882653, 1.0, 180.0);
+            assertEquals(1, reopened.getHitCount());
+            assertArrayEquals(rendered, Binaural.getStereoBuffer().getSamples());
+        } finally {
+            Binaural.setDiskCache(null);
+            Binaural.clearBuffers();
+            Binaural.getRenderCache().clear();
+        }
+    }
+}
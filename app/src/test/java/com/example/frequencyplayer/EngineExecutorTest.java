@@ -0,0 +1,154 @@
+package com.example.frequencyplayer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EngineExecutorTest {
+
+    private EngineExecutor executor;
+
+    @Before
+    public void setUp() {
+        executor = new EngineExecutor("EngineExecutorTest");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5000));
+        Binaural.getRenderCache().clear();
+    }
+
+    private static Runnable record(final List<Integer> ran, final int id, final CountDownLatch done) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                ran.add(id);
+                done.countDown();
+            }
+        };
+    }
+
+    @Test
+    public void submit_coalescesWaitingRequests() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> ran = Collections.synchronizedList(new ArrayList<Integer>());
+
+        // Hold the engine busy without reacting to interrupts
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                while (release.getCount() > 0) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        // Ignore, finish normally
+                    }
+                }
+                ran.add(0);
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch done = new CountDownLatch(1);
+        for (int i = 1; i <= 10; i++) {
+            executor.submit(record(ran, i, done));
+        }
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        // Only the busy request and the newest edit ran
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5000));
+        assertEquals(2, ran.size());
+        assertEquals(Integer.valueOf(0), ran.get(0));
+        assertEquals(Integer.valueOf(10), ran.get(1));
+        assertEquals(11, executor.getSubmittedCount());
+        assertEquals(9, executor.getCoalescedCount());
+        assertEquals(2, executor.getCompletedCount());
+    }
+
+    @Test
+    public void submit_cancelsRenderInFlight() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            for (final ChunkedRenderer renderer : new ChunkedRenderer[]{
+                    new ChunkedRenderer(null, 1024), new ChunkedRenderer(pool, 1024)}) {
+                final CountDownLatch started = new CountDownLatch(1);
+                final CountDownLatch finished = new CountDownLatch(1);
+                final Throwable[] thrown = new Throwable[1];
+
+                // Long enough to still be running when the next request arrives
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        started.countDown();
+                        try {
+                            while (true) {
+                                renderer.renderSine(48000, 440.0, 0.0, OscillatorMode.DOUBLE,
+                                        new short[48000 * 10], 0, 48000 * 10, 1);
+                            }
+                        } catch (CancellationException e) {
+                            thrown[0] = e;
+                            throw e;
+                        }
+                    }
+                });
+                assertTrue(started.await(5, TimeUnit.SECONDS));
+
+                final boolean[] interruptedOnStart = {true};
+                executor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        interruptedOnStart[0] = Thread.currentThread().isInterrupted();
+                        finished.countDown();
+                    }
+                });
+                assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+                assertTrue(thrown[0] instanceof CancellationException);
+                assertFalse("The next request starts with a clear interrupt flag", interruptedOnStart[0]);
+            }
+            assertEquals(2, executor.getCancelledCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void cancelledRender_isNotCached() {
+        RenderKey key = RenderKey.forLoop(0.406277478, 1.0, 180.0, 0.01, 48000, OscillatorMode.DOUBLE);
+        Thread.currentThread().interrupt();
+        try {
+            Binaural.obtain(key);
+            fail("Expected the render to be cancelled");
+        } catch (CancellationException expected) {
+        } finally {
+            Thread.interrupted();
+        }
+        assertFalse(Binaural.getRenderCache().contains(key));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void submit_rejectedAfterShutdown() {
+        executor.shutdown();
+        executor.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+    }
+}
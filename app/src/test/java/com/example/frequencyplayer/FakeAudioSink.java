@@ -0,0 +1,138 @@
+package com.example.frequencyplayer;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// Headless AudioSink that accepts blocks as fast as they are written and keeps the first ones.
+// It can be made to fail like a dead AudioTrack. Tests wait on its write counts instead of
+// polling the engine.
+public class FakeAudioSink implements AudioSink {
+
+    private final short[] captured;
+    private int capturedLength;
+    private volatile long samplesWritten;
+    private volatile short lastSample;
+    private volatile int startCount;
+    private volatile int errorCode;
+    private volatile int failedWriteCount;
+    private volatile Thread writerThread;
+    private volatile boolean started;
+    private volatile boolean released;
+
+    public FakeAudioSink(int captureSamples) {
+        captured = new short[captureSamples];
+    }
+
+    @Override
+    public void start() {
+        started = true;
+        startCount++;
+    }
+
+    @Override
+    public synchronized int write(short[] buffer, int offset, int numSamples) {
+        writerThread = Thread.currentThread();
+        notifyAll();
+        if (errorCode != 0) {
+            failedWriteCount++;
+            return errorCode;
+        }
+
+        int toCapture = Math.min(numSamples, captured.length - capturedLength);
+        System.arraycopy(buffer, offset, captured, capturedLength, toCapture);
+        capturedLength += toCapture;
+        samplesWritten += numSamples;
+        if (numSamples > 0) lastSample = buffer[offset + numSamples - 1];
+        return numSamples;
+    }
+
+    @Override
+    public synchronized int write(ByteBuffer data, int sizeInBytes) {
+        writerThread = Thread.currentThread();
+        notifyAll();
+
+        ByteBuffer bytes = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        bytes.limit(bytes.position() + sizeInBytes);
+
+        int numSamples = sizeInBytes / 2;
+        int toCapture = Math.min(numSamples, captured.length - capturedLength);
+        bytes.asShortBuffer().get(captured, capturedLength, toCapture);
+        capturedLength += toCapture;
+        samplesWritten += numSamples;
+
+        data.position(data.position() + sizeInBytes);
+        return sizeInBytes;
+    }
+
+    @Override
+    public void stop() {
+        started = false;
+    }
+
+    @Override
+    public void release() {
+        released = true;
+    }
+
+    public short[] getCaptured() {
+        return Arrays.copyOf(captured, capturedLength);
+    }
+
+    public long getSamplesWritten() {
+        return samplesWritten;
+    }
+
+    // Waits until at least the given number of samples were written, false on timeout.
+    public synchronized boolean awaitSamplesWritten(long samples, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (samplesWritten < samples) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return false;
+            wait(left);
+        }
+        return true;
+    }
+
+    public int getFailedWriteCount() {
+        return failedWriteCount;
+    }
+
+    // Waits until at least the given number of writes failed, false on timeout.
+    public synchronized boolean awaitFailedWrites(int count, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (failedWriteCount < count) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return false;
+            wait(left);
+        }
+        return true;
+    }
+
+    // Thread of the last write, the render thread of an engine playing into the sink.
+    public Thread getWriterThread() {
+        return writerThread;
+    }
+
+    // Last sample of the last block written.
+    public short getLastSample() {
+        return lastSample;
+    }
+
+    public int getStartCount() {
+        return startCount;
+    }
+
+    // Makes every following write return the negative error code, or succeed again for 0.
+    public void setErrorCode(int errorCode) {
+        this.errorCode = errorCode;
+    }
+
+    public boolean isStarted() {
+        return started;
+    }
+
+    public boolean isReleased() {
+        return released;
+    }
+}
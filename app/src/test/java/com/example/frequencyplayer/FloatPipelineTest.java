@@ -0,0 +1,155 @@
+package com.example.frequencyplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FloatPipelineTest {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    // Hides the float render of a source, so a mixer takes it through 16 bit like before.
+    private static BlockSource shortOnly(final BlockSource source) {
+        return new BlockSource() {
+            @Override
+            public int getChannelCount() {
+                return source.getChannelCount();
+            }
+
+            @Override
+            public void render(short[] out, int offset, int frames) {
+                source.render(out, offset, frames);
+            }
+        };
+    }
+
+    @Test
+    public void sinSynth_floatRenderMatchesShortRender() {
+        for (OscillatorMode mode : OscillatorMode.values()) {
+            SinSynth a = new SinSynth(SAMPLE_RATE, 211.671346, 30.0, mode);
+            SinSynth b = new SinSynth(SAMPLE_RATE, 211.671346, 30.0, mode);
+            a.setAmplitude(0.7);
+            b.setAmplitude(0.7);
+
+            short[] s = new short[SAMPLE_RATE];
+            float[] f = new float[SAMPLE_RATE];
+            a.render(s, 0, SAMPLE_RATE);
+            b.render(f, 0, SAMPLE_RATE);
+
+            // The 16 bit render rounds down, the float one keeps the fraction
+            for (int i = 0; i < SAMPLE_RATE; i++) {
+                assertEquals(mode + " at " + i, s[i], f[i] * 32767, 1.5);
+            }
+            assertEquals(a.getPhase(), b.getPhase(), 0.0);
+        }
+    }
+
+    @Test
+    public void binauralSource_glidesTheSameInFloatAtAnyBlockSize() {
+        float[] whole = new float[2 * 10000];
+        float[] blocks = new float[2 * 10000];
+        new BinauralSource(SAMPLE_RATE, Ramp.linear(100.0, 300.0, 0.1), Ramp.constant(6.0), 90.0,
+                OscillatorMode.DOUBLE).render(whole, 0, 10000);
+
+        BinauralSource source = new BinauralSource(SAMPLE_RATE, Ramp.linear(100.0, 300.0, 0.1), Ramp.constant(6.0),
+                90.0, OscillatorMode.DOUBLE);
+        for (int f = 0; f < 10000; f += 333) source.render(blocks, 2 * f, Math.min(333, 10000 - f));
+
+        assertArrayEquals(whole, blocks, 0f);
+    }
+
+    @Test
+    public void quantizer_roundsAndClipsWithoutDither() {
+        float[] in = {0f, 0.5f / 32767, -0.49f / 32767, 1f, -1f, 1.5f, -1.5f};
+        short[] out = new short[in.length];
+        new Quantizer(false).quantize(in, 0, out, 0, in.length);
+
+        assertArrayEquals(new short[]{0, 1, 0, 32767, -32767, 32767, -32768}, out);
+    }
+
+    @Test
+    public void quantizer_ditherIsTriangularAndDecorrelatesQuietSignals() {
+        int n = 1 << 18;
+        float[] in = new float[n];
+        for (int i = 0; i < n; i++) in[i] = (float) (1000.25 / 32767);
+        short[] out = new short[n];
+        new Quantizer(true, 7).quantize(in, 0, out, 0, n);
+
+        // Rounding plus TPDF: the error has no bias, a variance of 1/4 LSB^2 and stays within 1.5 LSB
+        double sum = 0;
+        double sumSquares = 0;
+        for (short s : out) {
+            double error = s - 1000.25;
+            assertTrue(Math.abs(error) <= 1.5);
+            sum += error;
+            sumSquares += error * error;
+        }
+        assertEquals(0.0, sum / n, 0.01);
+        assertEquals(0.25, sumSquares / n, 0.01);
+
+        // A sine of 0.4 LSB vanishes without dither, dithered it survives on average
+        float[] quiet = new float[n];
+        for (int i = 0; i < n; i++) quiet[i] = (float) (0.4 / 32767 * Math.sin(2 * Math.PI * i / 64));
+        short[] plain = new short[n];
+        short[] dithered = new short[n];
+        new Quantizer(false).quantize(quiet, 0, plain, 0, n);
+        new Quantizer(true, 7).quantize(quiet, 0, dithered, 0, n);
+
+        double plainCorrelation = 0;
+        double ditheredCorrelation = 0;
+        for (int i = 0; i < n; i++) {
+            double reference = Math.sin(2 * Math.PI * i / 64);
+            plainCorrelation += plain[i] * reference;
+            ditheredCorrelation += dithered[i] * reference;
+        }
+        assertEquals(0.0, plainCorrelation, 0.0);
+        assertEquals(0.4 * n / 2, ditheredCorrelation, 0.05 * n);
+    }
+
+    @Test
+    public void quantizedSource_matchesTheShortRender() {
+        short[] expected = new short[2 * 5000];
+        short[] actual = new short[2 * 5000];
+        new BinauralSource(SAMPLE_RATE, 130.8200863, 7.0, 90.0).render(expected, 0, 5000);
+
+        QuantizedSource source = new QuantizedSource(new BinauralSource(SAMPLE_RATE, 130.8200863, 7.0, 90.0), false);
+        for (int f = 0; f < 5000; f += 512) source.render(actual, 2 * f, Math.min(512, 5000 - f));
+
+        assertEquals(2, source.getChannelCount());
+        for (int i = 0; i < expected.length; i++) assertEquals(expected[i], actual[i], 1);
+    }
+
+    @Test
+    public void mixer_floatAndShortVoicesMixAlike() {
+        BinauralMixer floats = new BinauralMixer(SAMPLE_RATE, 512);
+        BinauralMixer shorts = new BinauralMixer(SAMPLE_RATE, 512);
+        for (int v = 0; v < 4; v++) {
+            floats.addVoice(new BinauralSource(SAMPLE_RATE, 100.0 + 37.0 * v, 4.0, 0.0), 0.25, 0.0);
+            shorts.addVoice(shortOnly(new BinauralSource(SAMPLE_RATE, 100.0 + 37.0 * v, 4.0, 0.0)), 0.25, 0.0);
+        }
+
+        float[] a = new float[2 * 2048];
+        float[] b = new float[2 * 2048];
+        floats.render(a, 0, 2048);
+        shorts.render(b, 0, 2048);
+        for (int i = 0; i < a.length; i++) assertEquals(a[i], b[i], 2f / 32767);
+    }
+
+    @Test
+    public void quantizedMixer_allocatesNothingPerBlock() {
+        BinauralMixer mixer = new BinauralMixer(SAMPLE_RATE, 512);
+        mixer.addVoice(new BinauralSource(SAMPLE_RATE, 200.0, 5.0, 0.0), 0.5, 0.0);
+        mixer.addVoice(new NoiseSource(NoiseColor.PINK, 2, 1), 0.1, 0.0);
+        QuantizedSource source = new QuantizedSource(mixer, true);
+        short[] out = new short[2 * 512];
+        for (int block = 0; block < 1000; block++) {
+            source.render(out, 0, 512);
+        }
+
+        long before = ThreadAllocation.bytes();
+        for (int block = 0; block < 1000; block++) {
+            source.render(out, 0, 512);
+        }
+        ThreadAllocation.assertNoneSince(before);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.frequencyplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LoopPlannerTest {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    private static double distance(double cycles) {
+        return Math.abs(cycles - Math.rint(cycles));
+    }
+
+    @Test
+    public void plan_findsExactLoopForCommensurateFrequencies() {
+        LoopPlan plan = LoopPlanner.plan(SAMPLE_RATE, 1000.0, 10.0);
+
+        // One beat period is 4800 frames, holding 100 and 101 whole carrier periods
+        assertEquals(4800, plan.getNumFrames());
+        assertEquals(100, plan.getRightCycles());
+        assertEquals(101, plan.getLeftCycles());
+        assertEquals(1, plan.getBeatCycles());
+        assertEquals(0.0, plan.getPhaseError(), 1e-9);
+        assertEquals(1000.0, plan.getRightFrequency(), 1e-9);
+        assertEquals(10.0, plan.getBeat(), 1e-9);
+    }
+
+    @Test
+    public void plan_isShortestWithinTolerance() {
+        double frequency = 211.671346;
+        double beat = 4.0;
+        double tolerance = 0.01;
+        LoopPlan plan = LoopPlanner.plan(SAMPLE_RATE, frequency, beat, tolerance, 60);
+
+        assertTrue(plan.getPhaseError() <= tolerance);
+        assertTrue(plan.getRightCycles() >= 1 && plan.getBeatCycles() >= 1);
+
+        // Brute force: no shorter buffer closes all three within the tolerance
+        for (int n = 1; n < plan.getNumFrames(); n++) {
+            double right = n * frequency / SAMPLE_RATE;
+            double left = n * (frequency + beat) / SAMPLE_RATE;
+            double beatCycles = n * beat / SAMPLE_RATE;
+            boolean closes = distance(right) <= tolerance && distance(left) <= tolerance
+                    && distance(beatCycles) <= tolerance && Math.rint(right) >= 1 && Math.rint(beatCycles) >= 1;
+            assertFalse("Shorter loop of " + n + " frames", closes);
+        }
+
+        // Snapping moves the frequencies by no more than the tolerance spread over the loop
+        double maxShift = tolerance * SAMPLE_RATE / plan.getNumFrames();
+        assertEquals(frequency, plan.getRightFrequency(), maxShift);
+        assertEquals(beat, plan.getBeat(), 2 * maxShift);
+    }
+
+    @Test
+    public void plan_tighterToleranceNeverShortensLoop() {
+        LoopPlan loose = LoopPlanner.plan(SAMPLE_RATE, 49.96882653, 1.0, 0.02, 60);
+        LoopPlan tight = LoopPlanner.plan(SAMPLE_RATE, 49.96882653, 1.0, 0.002, 60);
+        assertTrue(tight.getNumFrames() >= loose.getNumFrames());
+        assertTrue(tight.getPhaseError() <= 0.002);
+    }
+
+    @Test
+    public void plan_fallsBackToSmallestErrorWhenNothingFits() {
+        LoopPlan plan = LoopPlanner.plan(SAMPLE_RATE, 211.671346, 0.7, 0.0, 5);
+        assertTrue(plan.getNumFrames() <= 5 * SAMPLE_RATE);
+        assertTrue(plan.getPhaseError() > 0.0);
+        assertTrue(plan.getPhaseError() < 0.5);
+    }
+
+    @Test
+    public void plannedLoop_closesWithoutPhaseJump() {
+        LoopPlan plan = LoopPlanner.plan(SAMPLE_RATE, 342.4914324, 7.5);
+        int n = plan.getNumFrames();
+
+        // Rendering one frame past the loop must land back on the first frame
+        for (OscillatorMode mode : OscillatorMode.values()) {
+            short[] right = new short[n + 1];
+            short[] left = new short[n + 1];
+            new SinSynth(SAMPLE_RATE, plan.getRightFrequency(), 0.0, mode).render(right, 0, n + 1);
+            new SinSynth(SAMPLE_RATE, plan.getLeftFrequency(), 180.0, mode).render(left, 0, n + 1);
+            assertEquals(right[0], right[n], 1);
+            assertEquals(left[0], left[n], 1);
+        }
+    }
+}
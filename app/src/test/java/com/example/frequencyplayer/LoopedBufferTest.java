@@ -0,0 +1,107 @@
+package com.example.frequencyplayer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LoopedBufferTest {
+
+    @After
+    public void tearDown() {
+        Binaural.setSampleRate(48000);
+        Binaural.getRenderCache().clear();
+    }
+
+    private static short[] stereoLoop(int frames) {
+        short[] loop = new short[2 * frames];
+        for (int i = 0; i < loop.length; i++) loop[i] = (short) (i * 7 - 1000);
+        return loop;
+    }
+
+    @Test
+    public void render_repeatsTheLoopAcrossAnyBlockSize() {
+        short[] loop = stereoLoop(1000);
+        LoopedBuffer buffer = new LoopedBuffer(loop, 2);
+        assertEquals(1000, buffer.getLoopFrames());
+
+        int[] blockSizes = {1, 333, 999, 1000, 1001, 4096};
+        short[] out = new short[2 * 4096];
+        long frame = 0;
+        for (int round = 0; round < 20; round++) {
+            for (int blockFrames : blockSizes) {
+                buffer.render(out, 0, blockFrames);
+                for (int i = 0; i < 2 * blockFrames; i++) {
+                    assertEquals(loop[(int) ((2 * frame + i) % loop.length)], out[i]);
+                }
+                frame += blockFrames;
+                assertEquals(frame % 1000, buffer.getPosition());
+            }
+        }
+    }
+
+    @Test
+    public void read_startsAnywhereInTheRepetition() {
+        short[] loop = stereoLoop(441);
+        LoopedBuffer buffer = new LoopedBuffer(loop, 2);
+
+        // Far past the int range, a day of playback at 48 kHz
+        long frame = 24L * 3600 * 48000 + 17;
+        short[] out = new short[2 * 1000];
+        buffer.read(frame, out, 0, 1000);
+        for (int i = 0; i < out.length; i++) {
+            assertEquals(loop[(int) ((2 * frame + i) % loop.length)], out[i]);
+        }
+        assertEquals(0, buffer.getPosition());
+
+        buffer.seek(frame);
+        short[] rendered = new short[2 * 1000];
+        buffer.render(rendered, 0, 1000);
+        assertArrayEquals(out, rendered);
+    }
+
+    @Test
+    public void render_streamsTenMinutesWithOneLoopOfMemory() {
+        Binaural.setSampleRate(48000);
+        LoopedBuffer buffer = Binaural.obtainLoopBuffer(211.671346, 4.0, 180.0);
+        short[] block = new short[2 * 512];
+        buffer.render(block, 0, 512);
+
+        long frames = 10L * 60 * 48000;
+        long before = ThreadAllocation.bytes();
+        for (long f = 512; f < frames; f += 512) {
+            buffer.render(block, 0, 512);
+        }
+
+        // The materialized copy would take 2 * frames shorts, 115 MB
+        ThreadAllocation.assertNoneSince(before);
+        assertEquals(frames % buffer.getLoopFrames(), buffer.getPosition());
+    }
+
+    @Test
+    public void concat_matchesRepeatingByIndex() {
+        int[] period = {1, 2, 3, 4, 5, 6, 7};
+        int[] tiled = Util.concatTillLength(period, 100);
+        for (int i = 0; i < tiled.length; i++) assertEquals(period[i % period.length], tiled[i]);
+
+        int[] repeated = Util.concatNTimes(period, 9);
+        assertEquals(63, repeated.length);
+        for (int i = 0; i < repeated.length; i++) assertEquals(period[i % period.length], repeated[i]);
+
+        short[] shorts = Util.concatTillLength(new short[]{-1, 0, 1}, 8);
+        assertArrayEquals(new short[]{-1, 0, 1, -1, 0, 1, -1, 0}, shorts);
+        assertArrayEquals(new short[]{-1, 0, 1, -1, 0, 1}, Util.concatNTimes(new short[]{-1, 0, 1}, 2));
+
+        assertEquals(0, Util.concatTillLength(new int[0], 0).length);
+        try {
+            Util.concatTillLength(new int[0], 1);
+            fail("Repeated an empty period.");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_rejectsPartialFrames() {
+        new LoopedBuffer(new short[3], 2);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.frequencyplayer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class NoiseSourceTest {
+
+    private static final int FRAMES = 1 << 16;
+
+    private static short[] render(NoiseSource source, int frames, int blockFrames) {
+        int channels = source.getChannelCount();
+        short[] out = new short[channels * frames];
+        for (int f = 0; f < frames; f += blockFrames) {
+            source.render(out, channels * f, Math.min(blockFrames, frames - f));
+        }
+        return out;
+    }
+
+    // Correlation of neighbouring samples on one channel, 0 for white, close to 1 for brown.
+    private static double lagOneCorrelation(short[] samples, int channel, int channels) {
+        double sum = 0, sumSquares = 0, sumProducts = 0;
+        int n = samples.length / channels;
+        for (int f = 0; f < n; f++) {
+            double x = samples[channels * f + channel];
+            sum += x;
+            sumSquares += x * x;
+            if (f > 0) sumProducts += x * samples[channels * (f - 1) + channel];
+        }
+        double mean = sum / n;
+        double variance = sumSquares / n - mean * mean;
+        return (sumProducts / (n - 1) - mean * mean) / variance;
+    }
+
+    private static double rms(short[] samples) {
+        double sumSquares = 0;
+        for (short s : samples) sumSquares += (double) s * s;
+        return Math.sqrt(sumSquares / samples.length) / 32767;
+    }
+
+    @Test
+    public void render_isReproducibleFromSeedAtAnyBlockSize() {
+        for (NoiseColor color : NoiseColor.values()) {
+            short[] whole = render(new NoiseSource(color, 2, 42), FRAMES, FRAMES);
+            assertArrayEquals(whole, render(new NoiseSource(color, 2, 42), FRAMES, 333));
+            assertFalse(Arrays.equals(whole, render(new NoiseSource(color, 2, 43), FRAMES, FRAMES)));
+
+            NoiseSource source = new NoiseSource(color, 2, 42);
+            render(source, 1000, 1000);
+            source.reset();
+            assertArrayEquals(whole, render(source, FRAMES, 512));
+        }
+    }
+
+    @Test
+    public void colors_haveTheirSpectralTilt() {
+        double white = lagOneCorrelation(render(new NoiseSource(NoiseColor.WHITE, 1, 1), FRAMES, 512), 0, 1);
+        double pink = lagOneCorrelation(render(new NoiseSource(NoiseColor.PINK, 1, 1), FRAMES, 512), 0, 1);
+        double brown = lagOneCorrelation(render(new NoiseSource(NoiseColor.BROWN, 1, 1), FRAMES, 512), 0, 1);
+
+        assertEquals(0.0, white, 0.02);
+        assertTrue("Pink " + pink, pink > 0.5 && pink < 0.95);
+        assertTrue("Brown " + brown, brown > 0.98);
+    }
+
+    @Test
+    public void channels_areUncorrelated() {
+        for (NoiseColor color : NoiseColor.values()) {
+            short[] stereo = render(new NoiseSource(color, 2, 7), FRAMES, 512);
+            double sum01 = 0, sum00 = 0, sum11 = 0;
+            for (int f = 0; f < FRAMES; f++) {
+                sum01 += (double) stereo[2 * f] * stereo[2 * f + 1];
+                sum00 += (double) stereo[2 * f] * stereo[2 * f];
+                sum11 += (double) stereo[2 * f + 1] * stereo[2 * f + 1];
+            }
+            assertEquals(color.toString(), 0.0, sum01 / Math.sqrt(sum00 * sum11), 0.2);
+        }
+    }
+
+    @Test
+    public void colors_haveSimilarLoudness() {
+        for (NoiseColor color : NoiseColor.values()) {
+            double level = rms(render(new NoiseSource(color, 1, 3, 0.5), 4 * FRAMES, 512));
+            assertTrue(color + " rms " + level, level > 0.1 && level < 0.4);
+        }
+    }
+
+    @Test
+    public void render_allocatesNothingPerBlock() {
+        NoiseSource[] sources = new NoiseSource[NoiseColor.values().length];
+        for (int i = 0; i < sources.length; i++) sources[i] = new NoiseSource(NoiseColor.values()[i], 2, i);
+        short[] out = new short[2 * 512];
+        for (NoiseSource source : sources) source.render(out, 0, 512);
+
+        long before = ThreadAllocation.bytes();
+        for (int block = 0; block < 1000; block++) {
+            for (int i = 0; i < sources.length; i++) sources[i].render(out, 0, 512);
+        }
+        ThreadAllocation.assertNoneSince(before);
+    }
+}
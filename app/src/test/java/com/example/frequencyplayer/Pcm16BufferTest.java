@@ -0,0 +1,67 @@
+package com.example.frequencyplayer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class Pcm16BufferTest {
+
+    @After
+    public void tearDown() {
+        Binaural.getRenderCache().clear();
+    }
+
+    @Test
+    public void buffer_indexesInterleavedFrames() {
+        short[] samples = {1, -1, 2, -2, 3, -3};
+        Pcm16Buffer buffer = new Pcm16Buffer(samples, 2);
+        assertSame(samples, buffer.getSamples());
+        assertEquals(3, buffer.getNumFrames());
+        assertEquals(6, buffer.getNumSamples());
+        assertEquals(12, buffer.getSizeBytes());
+        assertEquals(2, buffer.get(1, 0));
+        assertEquals(-3, buffer.get(2, 1));
+
+        assertEquals(400, new Pcm16Buffer(2, 100).getSizeBytes());
+
+        try {
+            new Pcm16Buffer(new short[5], 2);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void loop_playsTheSamplesWithoutCopying() {
+        short[] samples = {1, -1, 2, -2, 3, -3};
+        LoopedBuffer loop = new Pcm16Buffer(samples, 2).loop();
+        short[] out = new short[10];
+        loop.render(out, 0, 5);
+        assertArrayEquals(new short[]{1, -1, 2, -2, 3, -3, 1, -1, 2, -2}, out);
+
+        samples[0] = 7;
+        loop.read(0, out, 0, 1);
+        assertEquals(7, out[0]);
+    }
+
+    @Test
+    public void render_holdsTwoBytesPerSample() {
+        RenderKey key = RenderKey.forDuration(211.671346, 4.0, 180.0, 60.0, 48000, OscillatorMode.DOUBLE);
+        Binaural.render(RenderKey.forDuration(211.671346, 4.0, 180.0, 1.0, 48000, OscillatorMode.DOUBLE));
+
+        long before = ThreadAllocation.bytes();
+        Pcm16Buffer buffer = Binaural.render(key);
+        long allocated = ThreadAllocation.bytes() - before;
+
+        // An int[] render took at least 4 bytes per sample
+        int loopFrames = LoopPlanner.plan(48000, 211.671346, 4.0).getNumFrames();
+        assertEquals(0, buffer.getNumFrames() % loopFrames);
+        assertTrue(buffer.getNumFrames() > 60 * 48000 - loopFrames);
+        assertTrue("Allocated " + allocated + " bytes", allocated < 2.2 * buffer.getNumSamples());
+
+        RenderCache cache = Binaural.getRenderCache();
+        cache.put(key, buffer);
+        assertEquals(2L * buffer.getNumSamples(), cache.getSizeBytes());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.frequencyplayer;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class PresetWarmupTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void tearDown() {
+        Binaural.setDiskCache(null);
+        Binaural.setSampleRate(48000);
+        Binaural.clearBuffers();
+        Binaural.getRenderCache().clear();
+    }
+
+    @Test
+    public void presetKeys_coverTheCatalogInOrder() {
+        List<RenderKey> keys = PresetWarmup.presetKeys(1.0, 180.0);
+        assertEquals(Binaural.CADUCEUS_FREQUENCIES.size(), keys.size());
+        assertEquals(Binaural.CADUCEUS_FREQUENCIES.get(185), keys.get(0).getFrequency(), 0.0);
+        assertEquals(Binaural.CADUCEUS_FREQUENCIES.get(201), keys.get(keys.size() - 1).getFrequency(), 0.0);
+        for (RenderKey key : keys) {
+            assertTrue(key.isLoop());
+            assertEquals(Binaural.getSampleRate(), key.getSampleRate());
+        }
+    }
+
+    @Test
+    public void run_fillsDiskCacheSoPresetsPlayFromIt() throws Exception {
+        // The whole catalog outgrows the memory cache, the disk cache keeps all of it
+        DiskRenderCache disk = new DiskRenderCache(folder.newFolder("renders"), DiskRenderCache.DEFAULT_MAX_BYTES);
+        Binaural.setDiskCache(disk);
+        Binaural.setSampleRate(16000);
+        PresetWarmup warmup = new PresetWarmup(1.0, 180.0);
+
+        long elapsed = warmup.run();
+        assertTrue(warmup.isDone());
+        assertEquals(elapsed, warmup.getElapsedNanos());
+        assertEquals(warmup.getKeys().size(), warmup.getNumRendered());
+        for (RenderKey key : warmup.getKeys()) {
+            assertTrue(disk.contains(key));
+        }
+        assertEquals(0, Binaural.getRenderCache().size());
+
+        // Playing a preset afterwards does not render it again
+        long misses = disk.getMissCount();
+        Binaural.generateLoop(Binaural.CADUCEUS_FREQUENCIES.get(196), 1.0, 180.0);
+        assertEquals(misses, disk.getMissCount());
+        assertArrayEquals(Binaural.render(warmup.getKeys().get(196 - 185)).getSamples(),
+                Binaural.getStereoBuffer().getSamples());
+    }
+
+    @Test
+    public void cancel_stopsBeforeFurtherLoops() {
+        Binaural.setSampleRate(16000);
+        PresetWarmup warmup = new PresetWarmup(1.0, 180.0);
+        warmup.cancel();
+        warmup.run();
+
+        assertTrue(warmup.isDone());
+        assertTrue(warmup.isCancelled());
+        assertEquals(0, warmup.getNumRendered());
+        assertEquals(0, Binaural.getRenderCache().size());
+    }
+
+    @Test
+    public void start_reportsToListenerInTheBackground() throws Exception {
+        Binaural.setSampleRate(16000);
+        List<RenderKey> keys = PresetWarmup.presetKeys(4.0, 90.0).subList(10, 14);
+        ForkJoinPool pool = new ForkJoinPool(2);
+        PresetWarmup warmup = new PresetWarmup(keys, pool);
+
+        final CountDownLatch finished = new CountDownLatch(1);
+        final AtomicLong reported = new AtomicLong(-1);
+        warmup.start(new PresetWarmup.Listener() {
+            @Override
+            public void onWarmupFinished(int numRendered, long elapsedNanos, boolean cancelled) {
+                assertEquals(4, numRendered);
+                assertFalse(cancelled);
+                reported.set(elapsedNanos);
+                finished.countDown();
+            }
+        });
+
+        assertTrue(finished.await(30, TimeUnit.SECONDS));
+        assertEquals(warmup.getElapsedNanos(), reported.get());
+        assertEquals(4, Binaural.getRenderCache().size());
+
+        // The pool belongs to the caller and keeps running
+        assertFalse(pool.isShutdown());
+        pool.shutdown();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void run_isOneShot() {
+        PresetWarmup warmup = new PresetWarmup(PresetWarmup.presetKeys(1.0, 180.0).subList(0, 0), new ForkJoinPool(1));
+        warmup.run();
+        warmup.run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.frequencyplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class RampTest {
+
+    private static final int SAMPLE_RATE = 8000;
+
+    @Test
+    public void valueAt_followsShapeAndHoldsEnds() {
+        Ramp linear = Ramp.linear(10.0, 4.0, 1200.0);
+        assertEquals(10.0, linear.valueAt(-1.0), 0.0);
+        assertEquals(7.0, linear.valueAt(600.0), 1e-12);
+        assertEquals(4.0, linear.valueAt(1200.0), 0.0);
+        assertEquals(4.0, linear.valueAt(5000.0), 0.0);
+
+        // Equal ratios in equal times
+        Ramp exponential = Ramp.exponential(100.0, 400.0, 2.0);
+        assertEquals(200.0, exponential.valueAt(1.0), 1e-9);
+        assertEquals(400.0, exponential.valueAt(2.0), 0.0);
+        assertEquals(100.0, exponential.getMin(), 0.0);
+        assertEquals(400.0, exponential.getMax(), 0.0);
+
+        assertTrue(Ramp.constant(5.0).isConstant());
+        assertFalse(linear.isConstant());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void exponential_rejectsZero() {
+        Ramp.exponential(0.0, 4.0, 1.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void binauralSource_rejectsRampsPastNyquist() {
+        new BinauralSource(SAMPLE_RATE, Ramp.linear(100.0, 3990.0, 1.0), Ramp.constant(20.0), 0.0, OscillatorMode.DOUBLE);
+    }
+
+    // Zero crossings of one channel over a window, two per period.
+    private static double measureFrequency(short[] block, int channel, int frames) {
+        int crossings = 0;
+        for (int f = 1; f < frames; f++) {
+            if ((block[2 * (f - 1) + channel] < 0) != (block[2 * f + channel] < 0)) crossings++;
+        }
+        return crossings / 2.0 / ((double) frames / SAMPLE_RATE);
+    }
+
+    @Test
+    public void glide_tracksRampsWhileStreaming() {
+        BinauralSource source = new BinauralSource(SAMPLE_RATE,
+                Ramp.exponential(200.0, 800.0, 20.0), Ramp.linear(10.0, 50.0, 20.0), 0.0, OscillatorMode.DOUBLE);
+
+        // One reused block for the whole glide, one second each
+        short[] block = new short[2 * SAMPLE_RATE];
+        for (int second = 0; second < 20; second++) {
+            source.render(block, 0, SAMPLE_RATE);
+
+            double middle = second + 0.5;
+            double carrier = source.getFrequency().valueAt(middle);
+            double other = carrier + source.getBeat().valueAt(middle);
+            assertEquals("Carrier at " + middle + " s", carrier, measureFrequency(block, 0, SAMPLE_RATE), 0.01 * carrier + 1);
+            assertEquals("Other channel at " + middle + " s", other, measureFrequency(block, 1, SAMPLE_RATE), 0.01 * other + 1);
+        }
+        assertEquals(20L * SAMPLE_RATE, source.getPosition());
+    }
+
+    @Test
+    public void glide_doesNotDependOnBlockSize() {
+        Ramp carrier = Ramp.linear(300.0, 310.0, 0.5);
+        Ramp beat = Ramp.linear(10.0, 4.0, 0.5);
+        int frames = SAMPLE_RATE;
+
+        short[] whole = new short[2 * frames];
+        new BinauralSource(SAMPLE_RATE, carrier, beat, 90.0, OscillatorMode.FIXED_Q15).render(whole, 0, frames);
+
+        short[] pieces = new short[2 * frames];
+        BinauralSource source = new BinauralSource(SAMPLE_RATE, carrier, beat, 90.0, OscillatorMode.FIXED_Q15);
+        for (int f = 0, n = 1; f < frames; f += n, n = n % 97 + 13) {
+            source.render(pieces, 2 * f, Math.min(n, frames - f));
+        }
+        assertArrayEquals(whole, pieces);
+    }
+
+    @Test
+    public void glide_twentyMinutesInConstantMemory() {
+        int sampleRate = 48000;
+        BinauralSource source = new BinauralSource(sampleRate,
+                Ramp.constant(211.671346), Ramp.linear(10.0, 4.0, 20 * 60), 180.0, OscillatorMode.FIXED_Q15);
+        FakeAudioSink sink = new FakeAudioSink(0);
+        StreamingPlaybackEngine engine = new StreamingPlaybackEngine(sink);
+        engine.setSource(source);
+
+        long frames = 20L * 60 * sampleRate;
+        while (engine.getFramesRendered() < frames) {
+            engine.pumpBlock();
+        }
+
+        assertEquals(engine.getFramesRendered(), source.getPosition());
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.frequencyplayer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RenderCacheTest {
+
+    private static RenderKey loopKey(double frequency) {
+        return RenderKey.forLoop(frequency, 4.0, 180.0, 0.01, 48000, OscillatorMode.DOUBLE);
+    }
+
+    private static Pcm16Buffer stereo(int numSamples) {
+        return new Pcm16Buffer(new short[numSamples], 2);
+    }
+
+    @Test
+    public void renderKey_coversEverySynthesisParameter() {
+        RenderKey key = RenderKey.forDuration(100.0, 4.0, 90.0, 1.0, 48000, OscillatorMode.DOUBLE);
+        assertEquals(key, RenderKey.forDuration(100.0, 4.0, 90.0, 1.0, 48000, OscillatorMode.DOUBLE));
+        assertEquals(key.hashCode(), RenderKey.forDuration(100.0, 4.0, 90.0, 1.0, 48000, OscillatorMode.DOUBLE).hashCode());
+
+        assertNotEquals(key, RenderKey.forDuration(100.5, 4.0, 90.0, 1.0, 48000, OscillatorMode.DOUBLE));
+        assertNotEquals(key, RenderKey.forDuration(100.0, 4.5, 90.0, 1.0, 48000, OscillatorMode.DOUBLE));
+        assertNotEquals(key, RenderKey.forDuration(100.0, 4.0, 91.0, 1.0, 48000, OscillatorMode.DOUBLE));
+        assertNotEquals(key, RenderKey.forDuration(100.0, 4.0, 90.0, 2.0, 48000, OscillatorMode.DOUBLE));
+        assertNotEquals(key, RenderKey.forDuration(100.0, 4.0, 90.0, 1.0, 44100, OscillatorMode.DOUBLE));
+        assertNotEquals(key, RenderKey.forDuration(100.0, 4.0, 90.0, 1.0, 48000, OscillatorMode.FIXED_Q15));
+        assertNotEquals(key, RenderKey.forLoop(100.0, 4.0, 90.0, 0.01, 48000, OscillatorMode.DOUBLE));
+        assertNotEquals(loopKey(100.0), RenderKey.forLoop(100.0, 4.0, 180.0, 0.02, 48000, OscillatorMode.DOUBLE));
+
+        assertTrue(loopKey(100.0).isLoop());
+        assertFalse(key.isLoop());
+    }
+
+    @Test
+    public void get_countsHitsAndMisses() {
+        RenderCache cache = new RenderCache(1000);
+        assertNull(cache.get(loopKey(100.0)));
+
+        Pcm16Buffer buffer = stereo(10);
+        cache.put(loopKey(100.0), buffer);
+        assertSame(buffer, cache.get(loopKey(100.0)));
+        assertSame(buffer, cache.get(loopKey(100.0)));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(20, cache.getSizeBytes());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsedWithinByteBudget() {
+        RenderCache cache = new RenderCache(2 * 300);
+        cache.put(loopKey(1.0), stereo(100));
+        cache.put(loopKey(2.0), stereo(100));
+        cache.put(loopKey(3.0), stereo(100));
+        assertEquals(600, cache.getSizeBytes());
+
+        // Touch the oldest so the second one becomes least recently used
+        cache.get(loopKey(1.0));
+        cache.put(loopKey(4.0), stereo(150));
+
+        assertTrue(cache.contains(loopKey(1.0)));
+        assertFalse(cache.contains(loopKey(2.0)));
+        assertFalse(cache.contains(loopKey(3.0)));
+        assertTrue(cache.contains(loopKey(4.0)));
+        assertEquals(2, cache.getEvictionCount());
+        assertEquals(2 * 250, cache.getSizeBytes());
+    }
+
+    @Test
+    public void put_skipsBuffersLargerThanCache() {
+        RenderCache cache = new RenderCache(50);
+        cache.put(loopKey(1.0), stereo(20));
+        cache.put(loopKey(2.0), stereo(26));
+        assertTrue(cache.contains(loopKey(1.0)));
+        assertFalse(cache.contains(loopKey(2.0)));
+        assertEquals(0, cache.getEvictionCount());
+    }
+
+    @Test
+    public void put_replacingKeyKeepsSizeExact() {
+        RenderCache cache = new RenderCache(1000);
+        cache.put(loopKey(1.0), stereo(100));
+        cache.put(loopKey(1.0), stereo(50));
+        assertEquals(1, cache.size());
+        assertEquals(100, cache.getSizeBytes());
+    }
+
+    @Test
+    public void cache_isSafeAcrossThreads() throws InterruptedException {
+        final RenderCache cache = new RenderCache(2 * 64 * 8);
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int seed = t;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        RenderKey key = loopKey((i * 7 + seed) % 16);
+                        if (cache.get(key) == null) cache.put(key, stereo(64));
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertTrue(cache.getSizeBytes() <= cache.getMaxBytes());
+        assertEquals(cache.size() * 2L * 64, cache.getSizeBytes());
+        assertEquals(40000, cache.getHitCount() + cache.getMissCount());
+    }
+}
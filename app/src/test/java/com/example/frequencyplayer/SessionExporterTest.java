@@ -0,0 +1,165 @@
+package com.example.frequencyplayer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+public class SessionExporterTest {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Counts and drops everything written, for exports limited by rendering alone.
+    private static class NullOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    private static SessionProgram program(double minutes) {
+        return new SessionProgram(SAMPLE_RATE, Arrays.asList(
+                new SessionProgram.Segment(Ramp.constant(200.0), Ramp.linear(10.0, 6.0, 30.0 * minutes), 180.0,
+                        30.0 * minutes, 2.0),
+                new SessionProgram.Segment(180.0, 4.0, 90.0, 30.0 * minutes, 3.0)));
+    }
+
+    @Test
+    public void export_writesTheSessionAsRendered() throws Exception {
+        SessionProgram program = program(0.1);
+        File file = folder.newFile("session.wav");
+        final List<Long> progress = new ArrayList<Long>();
+
+        SessionExporter exporter = SessionExporter.forProgram(program, OscillatorMode.DOUBLE);
+        exporter.export(file, new SessionExporter.Listener() {
+            @Override
+            public void onProgress(long framesWritten, long totalFrames, long elapsedNanos) {
+                progress.add(framesWritten);
+            }
+        });
+
+        int frames = (int) program.getTotalFrames();
+        assertTrue(exporter.isDone());
+        assertEquals(frames, exporter.getFramesWritten());
+        assertEquals(exporter.getFileSize(), file.length());
+        assertTrue(exporter.getFramesPerSecond() > 0);
+        assertEquals(4 * exporter.getFramesPerSecond(), exporter.getBytesPerSecond(), 1e-6);
+
+        // Reports come at least PROGRESS_INTERVAL_FRAMES apart and the last one is the total
+        assertEquals(Long.valueOf(frames), progress.get(progress.size() - 1));
+        for (int i = 1; i < progress.size() - 1; i++) {
+            assertTrue(progress.get(i) - progress.get(i - 1) >= SessionExporter.PROGRESS_INTERVAL_FRAMES);
+        }
+
+        short[] expected = new short[2 * frames];
+        new SessionScheduler(program, OscillatorMode.DOUBLE).render(expected, 0, frames);
+        short[] actual = new short[2 * frames];
+        WavFile wavFile = WavFile.openWavFile(file);
+        assertEquals(frames, wavFile.getNumFrames());
+        assertEquals(SAMPLE_RATE, wavFile.getSampleRate());
+        wavFile.readFrames(actual, frames);
+        wavFile.close();
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void export_cancelsBetweenBlocksAndDeletesThePartialFile() throws Exception {
+        File file = folder.newFile("cancelled.wav");
+        final SessionExporter exporter = SessionExporter.forProgram(program(1.0), OscillatorMode.FIXED_Q15);
+
+        try {
+            exporter.export(file, new SessionExporter.Listener() {
+                @Override
+                public void onProgress(long framesWritten, long totalFrames, long elapsedNanos) {
+                    if (framesWritten > totalFrames / 4) exporter.cancel();
+                }
+            });
+            fail("Export was not cancelled.");
+        } catch (CancellationException expected) {
+        }
+
+        assertTrue(exporter.isCancelled());
+        assertFalse(exporter.isDone());
+        assertEquals(-1, exporter.getElapsedNanos());
+        assertEquals(0.0, exporter.getFramesPerSecond(), 0.0);
+        assertTrue(exporter.getFramesWritten() < exporter.getTotalFrames() / 2);
+        assertFalse(file.exists());
+
+        try {
+            exporter.export(new NullOutputStream(), null);
+            fail("Export ran twice.");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void export_isNotDoneWhenTheStreamFails() throws Exception {
+        SessionExporter exporter = SessionExporter.forProgram(program(1.0), OscillatorMode.FIXED_Q15);
+        // Fills up after the first MB
+        OutputStream full = new OutputStream() {
+            long count;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                count += len;
+                if (count > 1 << 20) throw new IOException("No space left on device.");
+            }
+        };
+
+        try {
+            exporter.export(full, null);
+            fail("Export did not fail.");
+        } catch (IOException expected) {
+        }
+
+        assertFalse(exporter.isCancelled());
+        assertFalse(exporter.isDone());
+        assertEquals(0.0, exporter.getBytesPerSecond(), 0.0);
+        assertTrue(exporter.getFramesWritten() < exporter.getTotalFrames());
+    }
+
+    @Test
+    public void export_usesTheSameMemoryForAnyDuration() throws Exception {
+        // Warm up, so class loading and compilation are not counted
+        SessionExporter.forProgram(program(0.5), OscillatorMode.FIXED_Q15).export(new NullOutputStream(), null);
+
+        long[] allocated = new long[2];
+        double[] minutes = {1.0, 20.0};
+        for (int i = 0; i < 2; i++) {
+            SessionExporter exporter = SessionExporter.forProgram(program(minutes[i]), OscillatorMode.FIXED_Q15);
+            NullOutputStream out = new NullOutputStream();
+
+            long before = ThreadAllocation.bytes();
+            exporter.export(out, null);
+            allocated[i] = ThreadAllocation.bytes() - before;
+            assertEquals(exporter.getFileSize(), out.count);
+        }
+
+        // 20x the audio, hundreds of MB of wav, and no more than a few KB more allocated
+        assertTrue("Allocated " + Arrays.toString(allocated), allocated[1] - allocated[0] < 16 * 1024);
+    }
+}
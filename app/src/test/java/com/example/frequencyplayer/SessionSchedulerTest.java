@@ -0,0 +1,128 @@
+package com.example.frequencyplayer;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class SessionSchedulerTest {
+
+    private static final int SAMPLE_RATE = 8000;
+
+    private static SessionProgram program(SessionProgram.Segment... segments) {
+        return new SessionProgram(SAMPLE_RATE, Arrays.asList(segments));
+    }
+
+    private static short[] renderAll(SessionScheduler scheduler, int frames, int blockFrames) {
+        short[] out = new short[2 * frames];
+        for (int f = 0; f < frames; f += blockFrames) {
+            scheduler.render(out, 2 * f, Math.min(blockFrames, frames - f));
+        }
+        return out;
+    }
+
+    private static short[] renderSegment(SessionProgram.Segment segment, int frames) {
+        short[] out = new short[2 * frames];
+        new BinauralSource(SAMPLE_RATE, segment.getFrequency(), segment.getBeat(), segment.getShiftDeg(),
+                OscillatorMode.DOUBLE).render(out, 0, frames);
+        return out;
+    }
+
+    @Test
+    public void program_placesBoundariesOnExactFrames() {
+        // A third of a second does not divide the sample rate, the error must not accumulate
+        List<SessionProgram.Segment> segments = new ArrayList<SessionProgram.Segment>();
+        for (int i = 0; i < 300; i++) segments.add(new SessionProgram.Segment(200.0, 4.0, 0.0, 1.0 / 3, 0.0));
+        SessionProgram program = new SessionProgram(SAMPLE_RATE, segments);
+
+        assertEquals(100L * SAMPLE_RATE, program.getTotalFrames());
+        assertEquals(2667, program.getStartFrame(1));
+        assertEquals(5333, program.getStartFrame(2));
+        assertEquals(8000, program.getStartFrame(3));
+    }
+
+    @Test
+    public void render_switchesSegmentsOnTheBoundaryFrame() {
+        SessionProgram.Segment first = new SessionProgram.Segment(200.0, 4.0, 0.0, 0.3, 0.0);
+        SessionProgram.Segment second = new SessionProgram.Segment(330.0, 7.0, 90.0, 0.2, 0.0);
+        SessionProgram program = program(first, second);
+        int frames = (int) program.getTotalFrames();
+
+        short[] expected = new short[2 * frames];
+        System.arraycopy(renderSegment(first, 2400), 0, expected, 0, 2 * 2400);
+        System.arraycopy(renderSegment(second, 1600), 0, expected, 2 * 2400, 2 * 1600);
+
+        // Any block size gives the same samples
+        for (int blockFrames : new int[]{1, 7, 512, frames}) {
+            assertArrayEquals(expected, renderAll(new SessionScheduler(program, OscillatorMode.DOUBLE), frames, blockFrames));
+        }
+    }
+
+    @Test
+    public void render_crossfadesWithEqualPower() {
+        SessionProgram.Segment first = new SessionProgram.Segment(200.0, 4.0, 0.0, 0.5, 0.1);
+        SessionProgram.Segment second = new SessionProgram.Segment(330.0, 7.0, 90.0, 0.5, 0.25);
+        SessionProgram program = program(first, second);
+        SessionScheduler scheduler = new SessionScheduler(program, OscillatorMode.DOUBLE);
+        short[] out = renderAll(scheduler, (int) program.getTotalFrames(), 256);
+
+        // The first segment fades in from silence, the second over the end of the first
+        short[] a = renderSegment(first, 6000);
+        short[] b = renderSegment(second, 4000);
+        for (int f = 0; f < 800; f++) {
+            double gain = Math.sin(0.5 * Math.PI * f / 800);
+            assertEquals(Math.round(a[2 * f] * gain), out[2 * f]);
+        }
+        for (int f = 0; f < 2000; f++) {
+            double angle = 0.5 * Math.PI * f / 2000;
+            for (int c = 0; c < 2; c++) {
+                long mixed = Math.round(b[2 * f + c] * Math.sin(angle) + a[2 * (4000 + f) + c] * Math.cos(angle));
+                mixed = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mixed));
+                assertEquals(mixed, out[2 * (4000 + f) + c]);
+            }
+        }
+
+        // Past the crossfade only the new segment plays
+        for (int f = 2000; f < 4000; f++) assertEquals(b[2 * f + 1], out[2 * (4000 + f) + 1]);
+        assertTrue(scheduler.isFinished());
+        assertEquals(1, scheduler.getSegmentIndex());
+    }
+
+    @Test
+    public void render_playsSilenceAfterTheProgram() {
+        SessionProgram program = program(new SessionProgram.Segment(200.0, 4.0, 0.0, 0.01, 0.0));
+        SessionScheduler scheduler = new SessionScheduler(program, OscillatorMode.FIXED_Q15);
+        short[] out = renderAll(scheduler, 200, 200);
+
+        assertEquals(200, scheduler.getPosition());
+        assertTrue(scheduler.isFinished());
+        for (int i = 2 * 80; i < out.length; i++) assertEquals(0, out[i]);
+    }
+
+    @Test
+    public void ninetyMinuteProgram_streamsInConstantMemory() {
+        int sampleRate = 48000;
+        List<SessionProgram.Segment> segments = new ArrayList<SessionProgram.Segment>();
+        segments.add(new SessionProgram.Segment(211.671346, 10.0, 180.0, 10 * 60, 30));
+        segments.add(new SessionProgram.Segment(Ramp.constant(211.671346), Ramp.linear(10.0, 4.0, 20 * 60), 180.0, 20 * 60, 10));
+        segments.add(new SessionProgram.Segment(130.8200863, 4.0, 180.0, 40 * 60, 60));
+        segments.add(new SessionProgram.Segment(Ramp.exponential(130.8200863, 211.671346, 20 * 60),
+                Ramp.linear(4.0, 12.0, 20 * 60), 180.0, 20 * 60, 60));
+        SessionProgram program = new SessionProgram(sampleRate, segments);
+        assertEquals(90 * 60, program.getDurationSec(), 0.0);
+
+        SessionScheduler scheduler = new SessionScheduler(program, OscillatorMode.FIXED_Q15);
+        StreamingPlaybackEngine engine = new StreamingPlaybackEngine(new FakeAudioSink(0));
+        engine.setSource(scheduler);
+
+        while (!scheduler.isFinished()) {
+            engine.pumpBlock();
+        }
+
+        assertEquals(3, scheduler.getSegmentIndex());
+        assertEquals(90L * 60 * sampleRate, scheduler.getPosition());
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.frequencyplayer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SinSynthTest {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    @Test
+    public void render_keepsExactPitchOverLongRenders() {
+        // 211.67 Hz has 226.76 samples per period, which used to be truncated to 226
+        double frequency = 211.671346;
+        int frames = 60 * SAMPLE_RATE;
+
+        short[] out = new short[frames];
+        new SinSynth(SAMPLE_RATE, frequency).render(out, 0, frames);
+
+        int maxError = 0;
+        for (int i = 0; i < frames; i++) {
+            double expected = Math.sin(2.0 * Math.PI * frequency * i / SAMPLE_RATE) * 32767;
+            maxError = Math.max(maxError, Math.abs(out[i] - (int) expected));
+        }
+        assertTrue("Max error " + maxError, maxError <= 1);
+    }
+
+    @Test
+    public void render_isContinuousAcrossBlocks() {
+        int frames = 10000;
+        short[] whole = new short[frames];
+        new SinSynth(SAMPLE_RATE, 342.4914324, 45.0).render(whole, 0, frames);
+
+        short[] blocks = new short[frames];
+        SinSynth synth = new SinSynth(SAMPLE_RATE, 342.4914324, 45.0);
+        int[] blockSizes = {1, 7, 64, 333, 512};
+        int position = 0;
+        for (int i = 0; position < frames; i++) {
+            int n = Math.min(blockSizes[i % blockSizes.length], frames - position);
+            synth.render(blocks, position, n);
+            position += n;
+        }
+
+        assertArrayEquals(whole, blocks);
+    }
+
+    @Test
+    public void render_withStrideFillsOneChannel() {
+        short[] interleaved = new short[2 * 100];
+        new SinSynth(SAMPLE_RATE, 1000.0).render(interleaved, 1, 100, 2);
+
+        short[] mono = new short[100];
+        new SinSynth(SAMPLE_RATE, 1000.0).render(mono, 0, 100);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, interleaved[2 * i]);
+            assertEquals(mono[i], interleaved[2 * i + 1]);
+        }
+    }
+
+    @Test
+    public void setFrequency_keepsPhaseContinuous() {
+        SinSynth synth = new SinSynth(SAMPLE_RATE, 1000.0);
+        short[] out = new short[100];
+        synth.render(out, 0, 30);
+        double phase = synth.getPhase();
+
+        synth.setFrequency(2000.0);
+        assertEquals(phase, synth.getPhase(), 0.0);
+        synth.render(out, 30, 70);
+        double expected = phase + 70 * 2000.0 / SAMPLE_RATE;
+        assertEquals(expected - Math.floor(expected), synth.getPhase(), 1e-12);
+    }
+
+    @Test
+    public void constructor_appliesShiftAndAmplitude() {
+        SinSynth synth = new SinSynth(SAMPLE_RATE, 100.0, 450.0);
+        assertEquals(0.25, synth.getPhase(), 1e-12);
+
+        synth.setAmplitude(0.5);
+        short[] out = new short[1];
+        synth.render(out, 0, 1);
+        assertEquals(16383, out[0]);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setFrequency_rejectsAboveNyquist() {
+        new SinSynth(SAMPLE_RATE, SAMPLE_RATE / 2.0);
+    }
+
+    @Test
+    public void fixedQ15_staysWithinErrorBoundOfMathSin() {
+        double frequency = 211.671346;
+        int frames = 60 * SAMPLE_RATE;
+
+        short[] out = new short[frames];
+        new SinSynth(SAMPLE_RATE, frequency, 0.0, OscillatorMode.FIXED_Q15).render(out, 0, frames);
+
+        // The phase increment is quantized to 1/2^32 cycles, which bounds the pitch error
+        long increment = Math.round(frequency / SAMPLE_RATE * 4294967296.0);
+        double pitchError = Math.abs(increment * (double) SAMPLE_RATE / 4294967296.0 - frequency);
+
+        // Compare the waveform against Math.sin of the same phase to isolate the table error
+        double maxError = 0;
+        double sumSquares = 0;
+        for (int i = 0; i < frames; i++) {
+            long phase = (i * increment) & 0xFFFFFFFFL;
+            double expected = Math.sin(2.0 * Math.PI * phase / 4294967296.0) * 32767;
+            double error = Math.abs(out[i] - expected);
+            maxError = Math.max(maxError, error);
+            sumSquares += error * error;
+        }
+        double rmsError = Math.sqrt(sumSquares / frames);
+
+        assertTrue("Max error " + maxError, maxError < 2.0);
+        assertTrue("Rms error " + rmsError, rmsError < 1.0);
+        assertTrue("Pitch error " + pitchError, pitchError < 1e-5);
+    }
+
+    @Test
+    public void fixedQ15_lookupMatchesTableAtEntries() {
+        for (int i = 0; i < SineTable.TABLE_SIZE; i++) {
+            assertEquals(SineTable.TABLE[i], SineTable.lookup(i << SineTable.INDEX_SHIFT));
+        }
+        assertEquals(32767, SineTable.lookup(1 << 30));     // Quarter cycle
+        assertEquals(-32767, SineTable.lookup(3 << 30));    // Three quarters
+    }
+
+    @Test
+    public void setMode_carriesPhaseOver() {
+        SinSynth synth = new SinSynth(SAMPLE_RATE, 1000.0, 30.0);
+        short[] out = new short[64];
+        synth.render(out, 0, 64);
+        double phase = synth.getPhase();
+
+        synth.setMode(OscillatorMode.FIXED_Q15);
+        assertEquals(phase, synth.getPhase(), 1e-9);
+        synth.render(out, 0, 64);
+
+        synth.setMode(OscillatorMode.DOUBLE);
+        double expected = phase + 64 * 1000.0 / SAMPLE_RATE;
+        assertEquals(expected - Math.floor(expected), synth.getPhase(), 1e-6);
+    }
+}
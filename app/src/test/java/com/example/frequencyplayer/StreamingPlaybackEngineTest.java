@@ -0,0 +1,151 @@
+package com.example.frequencyplayer;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class StreamingPlaybackEngineTest {
+
+    private static final int SAMPLE_RATE = 48000;
+    private static final long TIMEOUT_MS = 10000;
+
+    @Test
+    public void pumpBlock_writesInterleavedStereo() {
+        FakeAudioSink sink = new FakeAudioSink(2 * 2 * 256);
+        StreamingPlaybackEngine engine = new StreamingPlaybackEngine(sink, 256);
+        assertEquals(0, engine.pumpBlock());
+
+        engine.setSource(new BinauralSource(SAMPLE_RATE, 1000.0, 10.0, 90.0));
+        assertEquals(256, engine.pumpBlock());
+        assertEquals(256, engine.pumpBlock());
+        assertEquals(512, engine.getFramesRendered());
+        assertFalse(engine.isPlaying());
+
+        short[] expected = new short[2 * 2 * 256];
+        new BinauralSource(SAMPLE_RATE, 1000.0, 10.0, 90.0).render(expected, 0, 512);
+        assertArrayEquals(expected, sink.getCaptured());
+
+        assertEquals(0, expected[0]);       // Carrier starts at zero phase
+        assertEquals(32767, expected[1]);   // Second channel is shifted by 90 degrees
+        assertEquals((short) (Math.sin(2.0 * Math.PI * 1000.0 / SAMPLE_RATE) * 32767), expected[2]);
+    }
+
+    // Fills every sample with one value and counts the frames it rendered.
+    private static class ConstantSource implements BlockSource {
+
+        private final short value;
+        private volatile long framesRendered;
+
+        ConstantSource(int value) {
+            this.value = (short) value;
+        }
+
+        @Override
+        public int getChannelCount() {
+            return 2;
+        }
+
+        @Override
+        public void render(short[] out, int offset, int frames) {
+            Arrays.fill(out, offset, offset + 2 * frames, value);
+            framesRendered += frames;
+        }
+    }
+
+    @Test
+    public void play_streamsContinuouslyUntilStopped() throws InterruptedException {
+        FakeAudioSink sink = new FakeAudioSink(0);
+        StreamingPlaybackEngine engine = new StreamingPlaybackEngine(sink);
+
+        engine.play(new BinauralSource(SAMPLE_RATE, 211.671346, 4.0, 180.0));
+        assertTrue(engine.isPlaying());
+        assertTrue(sink.isStarted());
+
+        // Ten seconds of audio, rendered as fast as the headless sink accepts it
+        assertTrue(sink.awaitSamplesWritten(2L * 10 * SAMPLE_RATE, TIMEOUT_MS));
+        engine.stop();
+
+        assertFalse(engine.isPlaying());
+        assertFalse(sink.isStarted());
+        assertEquals(sink.getSamplesWritten() / 2, engine.getFramesRendered());
+
+        engine.release();
+        assertTrue(sink.isReleased());
+    }
+
+    @Test
+    public void play_swapsSourceWithoutRestartingSink() throws InterruptedException {
+        FakeAudioSink sink = new FakeAudioSink(0);
+        StreamingPlaybackEngine engine = new StreamingPlaybackEngine(sink, 64);
+        ConstantSource first = new ConstantSource(1);
+        ConstantSource second = new ConstantSource(2);
+
+        engine.play(first);
+        assertTrue(sink.awaitSamplesWritten(2 * 64, TIMEOUT_MS));
+
+        // The block in flight may still be the first source's, ten more are the second's
+        engine.play(second);
+        assertTrue(sink.awaitSamplesWritten(sink.getSamplesWritten() + 2 * 11 * 64, TIMEOUT_MS));
+        assertTrue(engine.isPlaying());
+        engine.stop();
+        assertFalse(engine.isPlaying());
+
+        // One sink start for both sources, every block of both reached it, the second one last
+        assertEquals(1, sink.getStartCount());
+        assertEquals(first.framesRendered + second.framesRendered, sink.getSamplesWritten() / 2);
+        assertEquals(2, sink.getLastSample());
+    }
+
+    @Test
+    public void play_stopsOnSinkErrorAndRestartsOnNextPlay() throws InterruptedException {
+        FakeAudioSink sink = new FakeAudioSink(0);
+        StreamingPlaybackEngine engine = new StreamingPlaybackEngine(sink, 64);
+        ConstantSource source = new ConstantSource(1);
+
+        sink.setErrorCode(-6); // AudioTrack.ERROR_DEAD_OBJECT
+        engine.play(source);
+        assertTrue(sink.awaitFailedWrites(1, TIMEOUT_MS));
+
+        // The render thread ended after the first failed block instead of spinning on it
+        Thread renderThread = sink.getWriterThread();
+        renderThread.join(TIMEOUT_MS);
+        assertFalse(renderThread.isAlive());
+        assertFalse(engine.isPlaying());
+        assertEquals(1, sink.getFailedWriteCount());
+        assertEquals(64, source.framesRendered);
+        assertEquals(0, engine.getFramesRendered());
+        assertEquals(-6, engine.pumpBlock());
+
+        sink.setErrorCode(0);
+        engine.play(new ConstantSource(2));
+        assertTrue(engine.isPlaying());
+        assertEquals(2, sink.getStartCount());
+        assertTrue(sink.awaitSamplesWritten(2 * 64, TIMEOUT_MS));
+        engine.release();
+        assertEquals(2, sink.getLastSample());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void play_rejectsNonStereoSource() {
+        StreamingPlaybackEngine engine = new StreamingPlaybackEngine(new FakeAudioSink(0));
+        engine.play(new BlockSource() {
+            @Override
+            public int getChannelCount() {
+                return 1;
+            }
+
+            @Override
+            public void render(short[] out, int offset, int frames) {
+            }
+        });
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void play_afterReleaseThrows() {
+        StreamingPlaybackEngine engine = new StreamingPlaybackEngine(new FakeAudioSink(0));
+        engine.release();
+        engine.play(new BinauralSource(SAMPLE_RATE, 100.0, 1.0, 0.0));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.frequencyplayer;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+
+// Heap bytes allocated by the calling thread, for tests that check a path allocates nothing.
+// Tests read bytes() before the code they check and compare afterwards.
+final class ThreadAllocation {
+
+    // Room for the measurement itself
+    static final long SLACK_BYTES = 1024;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private ThreadAllocation() {
+    }
+
+    static long bytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    // Fails if the calling thread allocated more than the slack since before.
+    static void assertNoneSince(long before) {
+        long allocated = bytes() - before;
+        assertTrue("Allocated " + allocated + " bytes", allocated < SLACK_BYTES);
+    }
+}
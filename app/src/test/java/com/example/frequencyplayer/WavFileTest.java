@@ -0,0 +1,253 @@
+package com.example.frequencyplayer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.Channels;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class WavFileTest {
+
+    private static final int SAMPLE_RATE = 48000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static short[] randomSamples(int count, long seed) {
+        Random random = new Random(seed);
+        short[] samples = new short[count];
+        for (int i = 0; i < count; i++) samples[i] = (short) random.nextInt();
+        return samples;
+    }
+
+    @Test
+    public void shortFrames_roundTripMatchesLongPath() throws Exception {
+        int numFrames = 10007; // Not a multiple of the local buffer
+        short[] samples = randomSamples(2 * numFrames, 1);
+
+        File file = folder.newFile("short.wav");
+        WavFile writer = WavFile.newWavFile(file, 2, numFrames, 16, SAMPLE_RATE);
+        assertEquals(1000, writer.writeFrames(samples, 0, 1000));
+        assertEquals(numFrames - 1000, writer.writeFrames(samples, 2 * 1000, numFrames));
+        writer.close();
+
+        // Decode with the generic path
+        WavFile longReader = WavFile.openWavFile(file);
+        long[] asLong = new long[2 * numFrames];
+        assertEquals(numFrames, longReader.readFrames(asLong, numFrames));
+        longReader.close();
+        for (int i = 0; i < samples.length; i++) assertEquals(samples[i], asLong[i]);
+
+        // Decode with the fast path, in uneven blocks
+        WavFile shortReader = WavFile.openWavFile(file);
+        short[] asShort = new short[2 * numFrames];
+        int read = 0;
+        while (read < numFrames) read += shortReader.readFrames(asShort, 2 * read, 777);
+        assertEquals(0, shortReader.readFrames(asShort, 0, 1));
+        shortReader.close();
+        assertArrayEquals(samples, asShort);
+    }
+
+    @Test
+    public void shortFrames_interoperateWithGenericCalls() throws Exception {
+        int numFrames = 5000;
+        short[] samples = randomSamples(numFrames, 2);
+
+        File file = folder.newFile("mixed.wav");
+        WavFile writer = WavFile.newWavFile(file, 1, numFrames, 16, SAMPLE_RATE);
+        long[] single = new long[1];
+        for (int f = 0; f < numFrames; f++) {
+            if (f % 3 == 0) {
+                single[0] = samples[f];
+                writer.writeFrames(single, 1);
+            } else {
+                writer.writeFrames(samples, f, 1);
+            }
+        }
+        writer.close();
+
+        WavFile reader = WavFile.openWavFile(file);
+        short[] read = new short[numFrames];
+        for (int f = 0; f < numFrames; f++) {
+            if (f % 5 == 0) {
+                reader.readFrames(single, 1);
+                read[f] = (short) single[0];
+            } else {
+                reader.readFrames(read, f, 1);
+            }
+        }
+        reader.close();
+        assertArrayEquals(samples, read);
+    }
+
+    @Test
+    public void shortFrames_fallBackForOtherBitDepths() throws Exception {
+        short[] samples = {-128, -1, 0, 1, 127};
+
+        File file = folder.newFile("24bit.wav");
+        WavFile writer = WavFile.newWavFile(file, 1, samples.length, 24, SAMPLE_RATE);
+        writer.writeFrames(samples, samples.length);
+        writer.close();
+
+        WavFile reader = WavFile.openWavFile(file);
+        short[] read = new short[samples.length];
+        assertEquals(samples.length, reader.readFrames(read, samples.length));
+        reader.close();
+        assertArrayEquals(samples, read);
+    }
+
+    private File writeStereo(String name, short[] samples) throws Exception {
+        File file = folder.newFile(name);
+        WavFile writer = WavFile.newWavFile(file, 2, samples.length / 2, 16, SAMPLE_RATE);
+        writer.writeFrames(samples, samples.length / 2);
+        writer.close();
+        return file;
+    }
+
+    @Test
+    public void mapped_exposesDataChunkWithoutCopy() throws Exception {
+        short[] samples = randomSamples(2 * 3000, 4);
+        File file = writeStereo("mapped.wav", samples);
+
+        WavFile mapped = WavFile.openMappedWavFile(file);
+        assertTrue(mapped.isMapped());
+        assertEquals(3000, mapped.getNumFrames());
+
+        ShortBuffer shorts = mapped.getShortBuffer();
+        assertTrue(shorts.isReadOnly());
+        assertEquals(samples.length, shorts.remaining());
+        short[] viewed = new short[samples.length];
+        shorts.get(viewed);
+        assertArrayEquals(samples, viewed);
+
+        ByteBuffer bytes = mapped.getDataBuffer();
+        assertEquals(4 * 3000, bytes.remaining());
+        assertEquals(samples[1], bytes.getShort(2));
+
+        // Headless sink consumes the mapping directly
+        FakeAudioSink sink = new FakeAudioSink(samples.length);
+        assertEquals(bytes.remaining(), sink.write(bytes, bytes.remaining()));
+        assertArrayEquals(samples, sink.getCaptured());
+        mapped.close();
+    }
+
+    @Test
+    public void mapped_readFramesMatchesStreamedRead() throws Exception {
+        short[] samples = randomSamples(2 * 7001, 5);
+        File file = writeStereo("mappedRead.wav", samples);
+
+        WavFile mapped = WavFile.openMappedWavFile(file);
+        short[] read = new short[samples.length];
+        long[] single = new long[2];
+
+        // Alternate between the direct copy, the generic path and the buffered short path
+        int frames = 0;
+        while (frames < 7001) {
+            if (frames % 3 == 1) {
+                mapped.readFrames(single, 1);
+                read[2 * frames] = (short) single[0];
+                read[2 * frames + 1] = (short) single[1];
+                frames++;
+            } else {
+                frames += mapped.readFrames(read, 2 * frames, 1000);
+            }
+        }
+        assertEquals(0, mapped.getFramesRemaining());
+        mapped.close();
+        assertArrayEquals(samples, read);
+    }
+
+    @Test(expected = WavFileException.class)
+    public void mapped_keepsHeaderValidation() throws Exception {
+        File file = writeStereo("corrupt.wav", randomSamples(2 * 100, 6));
+
+        // Break the block align field of the fmt chunk
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(32);
+        raf.write(3);
+        raf.close();
+
+        WavFile.openMappedWavFile(file);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void streamed_hasNoMappedView() throws Exception {
+        File file = writeStereo("streamed.wav", randomSamples(2 * 10, 7));
+        WavFile streamed = WavFile.openWavFile(file);
+        try {
+            streamed.getDataBuffer();
+        } finally {
+            streamed.close();
+        }
+    }
+
+    private static byte[] readAll(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+        int read = 0;
+        while (read < bytes.length) read += in.read(bytes, read, bytes.length - read);
+        in.close();
+        return bytes;
+    }
+
+    @Test
+    public void memoryTargets_matchFileOutput() throws Exception {
+        int numFrames = 2001;
+        short[] samples = randomSamples(2 * numFrames, 8);
+        byte[] fileBytes = readAll(writeStereo("reference.wav", samples));
+        assertEquals(WavFile.getFileSize(2, numFrames, 16), fileBytes.length);
+
+        // Caller supplied stream
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        WavFile toStream = WavFile.newWavFile(stream, 2, numFrames, 16, SAMPLE_RATE);
+        toStream.writeFrames(samples, numFrames);
+        toStream.close();
+        assertArrayEquals(fileBytes, stream.toByteArray());
+
+        // Channel
+        ByteArrayOutputStream channelTarget = new ByteArrayOutputStream();
+        WavFile toChannel = WavFile.newWavFile(Channels.newChannel(channelTarget), 2, numFrames, 16, SAMPLE_RATE);
+        toChannel.writeFrames(samples, numFrames);
+        toChannel.close();
+        assertArrayEquals(fileBytes, channelTarget.toByteArray());
+
+        // Exactly sized heap buffer
+        ByteBuffer buffer = ByteBuffer.allocate(fileBytes.length);
+        WavFile toBuffer = WavFile.newWavFile(buffer, 2, numFrames, 16, SAMPLE_RATE);
+        toBuffer.writeFrames(samples, numFrames);
+        toBuffer.close();
+        assertFalse(buffer.hasRemaining());
+        assertArrayEquals(fileBytes, buffer.array());
+    }
+
+    @Test
+    public void memoryTarget_padsOddDataChunk() throws Exception {
+        byte[] fileBytes;
+        File file = folder.newFile("odd.wav");
+        WavFile toFile = WavFile.newWavFile(file, 1, 3, 8, SAMPLE_RATE);
+        toFile.writeFrames(new int[]{1, 2, 3}, 3);
+        toFile.close();
+        fileBytes = readAll(file);
+
+        ByteBuffer buffer = ByteBuffer.allocate((int) WavFile.getFileSize(1, 3, 8));
+        WavFile toBuffer = WavFile.newWavFile(buffer, 1, 3, 8, SAMPLE_RATE);
+        toBuffer.writeFrames(new int[]{1, 2, 3}, 3);
+        toBuffer.close();
+        assertArrayEquals(fileBytes, buffer.array());
+    }
+
+    @Test(expected = WavFileException.class)
+    public void memoryTarget_rejectsSmallBuffer() throws Exception {
+        WavFile.newWavFile(ByteBuffer.allocate(100), 2, 100, 16, SAMPLE_RATE);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// One block of the source each beat technique plays, from the same beat parameters.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BeatTechniqueBenchmark {
+
+    @Param({"48000"})
+    public int sampleRate;
+
+    @Param({"512"})
+    public int blockFrames;
+
+    @Param({"BINAURAL", "ISOCHRONIC", "MONAURAL"})
+    public BeatTechnique technique;
+
+    @Param({"DOUBLE", "FIXED_Q15"})
+    public OscillatorMode mode;
+
+    private BlockSource source;
+    private short[] block;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = new BeatParameters(211.671346, 4.0, 180.0, technique).createSource(sampleRate, mode);
+        block = new short[2 * blockFrames];
+    }
+
+    @Benchmark
+    public short[] render(SampleCounter counter) {
+        source.render(block, 0, blockFrames);
+        counter.samples += block.length;
+        return block;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// A 60 s stereo sine rendered in chunks, serially (threads = 0) or on a pool of the given size.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ChunkedRendererBenchmark {
+
+    @Param({"48000"})
+    public int sampleRate;
+
+    @Param({"0", "1", "2", "4", "8"})
+    public int threads;
+
+    @Param({"DOUBLE", "FIXED_Q15"})
+    public OscillatorMode mode;
+
+    private static final int DURATION_SEC = 60;
+
+    private ForkJoinPool pool;
+    private ChunkedRenderer renderer;
+    private int frames;
+    private short[] out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = threads == 0 ? null : new ForkJoinPool(threads);
+        renderer = new ChunkedRenderer(pool, ChunkedRenderer.DEFAULT_CHUNK_FRAMES);
+        frames = DURATION_SEC * sampleRate;
+        out = new short[2 * frames];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    @Benchmark
+    public short[] renderSine(SampleCounter counter) {
+        renderer.renderSine(sampleRate, 211.671346, 0.0, mode, out, 0, frames, 2);
+        renderer.renderSine(sampleRate, 215.671346, 180.0, mode, out, 1, frames, 2);
+        counter.samples += out.length;
+        return out;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// One mixer block with voices rendering 16 bit samples, against float voices quantized once,
+// with and without dither.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FloatPipelineBenchmark {
+
+    @Param({"48000"})
+    public int sampleRate;
+
+    @Param({"512"})
+    public int blockFrames;
+
+    @Param({"1", "4", "16"})
+    public int voices;
+
+    @Param({"SHORT_VOICES", "FLOAT", "FLOAT_DITHERED"})
+    public String path;
+
+    @Param({"DOUBLE", "FIXED_Q15"})
+    public OscillatorMode mode;
+
+    private BinauralMixer mixer;
+    private short[] block;
+
+    // Hides the float render of a source, so the mixer takes its 16 bit samples.
+    private static BlockSource shortOnly(final BlockSource source) {
+        return new BlockSource() {
+            @Override
+            public int getChannelCount() {
+                return source.getChannelCount();
+            }
+
+            @Override
+            public void render(short[] out, int offset, int frames) {
+                source.render(out, offset, frames);
+            }
+        };
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mixer = new BinauralMixer(sampleRate, blockFrames);
+        mixer.getQuantizer().setDither(path.equals("FLOAT_DITHERED"));
+        for (int v = 0; v < voices; v++) {
+            BlockSource voice = new BinauralSource(sampleRate, 100.0 + 13.0 * v, 4.0, 180.0, mode);
+            mixer.addVoice(path.equals("SHORT_VOICES") ? shortOnly(voice) : voice, 1.0 / voices, 0.0);
+        }
+        block = new short[2 * blockFrames];
+    }
+
+    @Benchmark
+    public short[] render(SampleCounter counter) {
+        mixer.render(block, 0, blockFrames);
+        counter.samples += block.length;
+        return block;
+    }
+}
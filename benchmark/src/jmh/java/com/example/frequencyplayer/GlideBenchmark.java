@@ -0,0 +1,59 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// One block of a binaural source whose beat glides from 10 to 4 Hz, against a constant beat.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class GlideBenchmark {
+
+    @Param({"48000"})
+    public int sampleRate;
+
+    @Param({"512"})
+    public int blockFrames;
+
+    @Param({"LINEAR", "EXPONENTIAL", "CONSTANT"})
+    public String beat;
+
+    @Param({"DOUBLE", "FIXED_Q15"})
+    public OscillatorMode mode;
+
+    // Long enough that no iteration reaches the end of the glide, which starts over every iteration
+    private static final double GLIDE_SEC = 24 * 60 * 60;
+
+    private BinauralSource source;
+    private short[] block;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Ramp ramp;
+        if (beat.equals("LINEAR")) {
+            ramp = Ramp.linear(10.0, 4.0, GLIDE_SEC);
+        } else if (beat.equals("EXPONENTIAL")) {
+            ramp = Ramp.exponential(10.0, 4.0, GLIDE_SEC);
+        } else {
+            ramp = Ramp.constant(4.0);
+        }
+        source = new BinauralSource(sampleRate, Ramp.constant(211.671346), ramp, 180.0, mode);
+        block = new short[2 * blockFrames];
+    }
+
+    @Benchmark
+    public short[] render(SampleCounter counter) {
+        source.render(block, 0, blockFrames);
+        counter.samples += block.length;
+        return block;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// One block of the mixer with a number of binaural voices, through the limiter.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MixerBenchmark {
+
+    @Param({"48000"})
+    public int sampleRate;
+
+    @Param({"512"})
+    public int blockFrames;
+
+    @Param({"1", "4", "16"})
+    public int voices;
+
+    @Param({"DOUBLE", "FIXED_Q15"})
+    public OscillatorMode mode;
+
+    private BinauralMixer mixer;
+    private short[] block;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mixer = new BinauralMixer(sampleRate, blockFrames);
+        for (int v = 0; v < voices; v++) {
+            mixer.addVoice(new BinauralSource(sampleRate, 100.0 + 13.0 * v, 4.0, 180.0, mode), 1.0 / voices, 0.0);
+        }
+        block = new short[2 * blockFrames];
+    }
+
+    @Benchmark
+    public short[] render(SampleCounter counter) {
+        mixer.render(block, 0, blockFrames);
+        counter.samples += block.length;
+        return block;
+    }
+}
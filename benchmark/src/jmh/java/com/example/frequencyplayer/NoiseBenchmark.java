@@ -0,0 +1,42 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// One stereo block of white, pink and brown noise.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NoiseBenchmark {
+
+    @Param({"512"})
+    public int blockFrames;
+
+    @Param({"WHITE", "PINK", "BROWN"})
+    public NoiseColor color;
+
+    private NoiseSource source;
+    private short[] block;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        source = new NoiseSource(color, 2, 1);
+        block = new short[2 * blockFrames];
+    }
+
+    @Benchmark
+    public short[] render(SampleCounter counter) {
+        source.render(block, 0, blockFrames);
+        counter.samples += block.length;
+        return block;
+    }
+}
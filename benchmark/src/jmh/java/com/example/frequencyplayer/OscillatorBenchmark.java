@@ -0,0 +1,45 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// One block of the SinSynth oscillator, Math.sin against the Q15 wavetable.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OscillatorBenchmark {
+
+    @Param({"48000"})
+    public int sampleRate;
+
+    @Param({"512"})
+    public int blockFrames;
+
+    @Param({"DOUBLE", "FIXED_Q15"})
+    public OscillatorMode mode;
+
+    private SinSynth synth;
+    private short[] block;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        synth = new SinSynth(sampleRate, 211.671346, 0.0, mode);
+        block = new short[blockFrames];
+    }
+
+    @Benchmark
+    public short[] render(SampleCounter counter) {
+        synth.render(block, 0, blockFrames);
+        counter.samples += blockFrames;
+        return block;
+    }
+}
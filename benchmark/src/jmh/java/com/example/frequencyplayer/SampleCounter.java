@@ -0,0 +1,22 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// Counts the samples every operation produces. JMH reports the count as a rate next to the
+// operation rate, samples/s, so runs of different sample rates and durations compare per
+// sample: ns/sample is 1e9 over that rate.
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class SampleCounter {
+
+    public long samples;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        samples = 0;
+    }
+}
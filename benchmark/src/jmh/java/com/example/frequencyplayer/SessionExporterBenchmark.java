@@ -0,0 +1,50 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+// Export of a one minute, two segment program into a stream that drops it, so rendering and
+// wav encoding are measured without the disk.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SessionExporterBenchmark {
+
+    @Param({"48000"})
+    public int sampleRate;
+
+    @Param({"DOUBLE", "FIXED_Q15"})
+    public OscillatorMode mode;
+
+    private static class NullOutputStream extends OutputStream {
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+
+    @Benchmark
+    public long export(SampleCounter counter) throws IOException, WavFileException {
+        SessionProgram program = new SessionProgram(sampleRate, Arrays.asList(
+                new SessionProgram.Segment(Ramp.constant(200.0), Ramp.linear(10.0, 6.0, 30.0), 180.0, 30.0, 2.0),
+                new SessionProgram.Segment(180.0, 4.0, 90.0, 30.0, 3.0)));
+        SessionExporter exporter = SessionExporter.forProgram(program, mode);
+        exporter.export(new NullOutputStream(), null);
+        counter.samples += 2 * exporter.getFramesWritten();
+        return exporter.getElapsedNanos();
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// One block of a session program, inside a steady segment or a crossfade between two.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SessionSchedulerBenchmark {
+
+    @Param({"48000"})
+    public int sampleRate;
+
+    @Param({"512"})
+    public int blockFrames;
+
+    @Param({"false", "true"})
+    public boolean crossfading;
+
+    @Param({"DOUBLE", "FIXED_Q15"})
+    public OscillatorMode mode;
+
+    // Long enough that no iteration reaches the end of the program, which starts over every iteration
+    private static final double SEGMENT_SEC = 24 * 60 * 60;
+
+    private SessionScheduler scheduler;
+    private short[] block;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        List<SessionProgram.Segment> segments = new ArrayList<SessionProgram.Segment>();
+        segments.add(new SessionProgram.Segment(211.671346, 10.0, 180.0, 1.0, 0.0));
+        segments.add(new SessionProgram.Segment(130.8200863, 4.0, 180.0, SEGMENT_SEC, crossfading ? SEGMENT_SEC : 0.0));
+        scheduler = new SessionScheduler(new SessionProgram(sampleRate, segments), mode);
+        block = new short[2 * blockFrames];
+
+        // Step into the second segment
+        short[] first = new short[2 * sampleRate];
+        scheduler.render(first, 0, sampleRate);
+    }
+
+    @Benchmark
+    public short[] render(SampleCounter counter) {
+        scheduler.render(block, 0, blockFrames);
+        counter.samples += block.length;
+        return block;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// One block of the streaming engine, rendered from a binaural source into a sink that drops it.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class StreamingEngineBenchmark {
+
+    @Param({"48000"})
+    public int sampleRate;
+
+    @Param({"256", "512", "4096"})
+    public int blockFrames;
+
+    private StreamingPlaybackEngine engine;
+
+    // Accepts every block at once, like a device that never blocks.
+    private static class DiscardingSink implements AudioSink {
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public int write(short[] buffer, int offset, int numSamples) {
+            return numSamples;
+        }
+
+        @Override
+        public int write(ByteBuffer data, int sizeInBytes) {
+            data.position(data.position() + sizeInBytes);
+            return sizeInBytes;
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new StreamingPlaybackEngine(new DiscardingSink(), blockFrames);
+        engine.setSource(new BinauralSource(sampleRate, 211.671346, 4.0, 180.0));
+    }
+
+    @Benchmark
+    public int pumpBlock(SampleCounter counter) {
+        int frames = engine.pumpBlock();
+        counter.samples += 2 * frames;
+        return frames;
+    }
+}
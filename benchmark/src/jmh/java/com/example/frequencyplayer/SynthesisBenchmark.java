@@ -0,0 +1,65 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Buffer synthesis of Binaural: a whole beat of the given duration, made of seamless loops.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SynthesisBenchmark {
+
+    private static final double FREQUENCY = 211.671346;
+    private static final double BEAT = 4.0;
+    private static final double SHIFT = 180.0;
+
+    @Param({"44100", "48000", "96000"})
+    public int sampleRate;
+
+    @Param({"1", "10", "60"})
+    public double durationSec;
+
+    @Param({"DOUBLE", "FIXED_Q15"})
+    public OscillatorMode mode;
+
+    private RenderKey key;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Binaural.setSampleRate(sampleRate);
+        Binaural.setOscillatorMode(mode);
+        key = RenderKey.forDuration(FREQUENCY, BEAT, SHIFT, durationSec, sampleRate, mode);
+    }
+
+    // generateBuffers goes through the render cache, every invocation starts from a cold one.
+    @Setup(Level.Invocation)
+    public void clearCaches() {
+        Binaural.clearBuffers();
+        Binaural.getRenderCache().clear();
+    }
+
+    @Benchmark
+    public Pcm16Buffer generateBuffers(SampleCounter counter) {
+        Binaural.generateBuffers(FREQUENCY, BEAT, SHIFT, durationSec);
+        Pcm16Buffer buffer = Binaural.getStereoBuffer();
+        counter.samples += buffer.getNumSamples();
+        return buffer;
+    }
+
+    // The render behind generateBuffers, without the cache lookups and the current buffer.
+    @Benchmark
+    public Pcm16Buffer render(SampleCounter counter) {
+        Pcm16Buffer buffer = Binaural.render(key);
+        counter.samples += buffer.getNumSamples();
+        return buffer;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+// Repeats one period of sine until a duration is filled, the way the buffers used to be built,
+// against streaming the same duration out of a LoopedBuffer in blocks.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class TilingBenchmark {
+
+    @Param({"44100", "48000", "96000"})
+    public int sampleRate;
+
+    @Param({"1", "10", "60"})
+    public double durationSec;
+
+    private static final int BLOCK_FRAMES = 512;
+
+    private short[] period;
+    private int length;
+    private int numTimes;
+    private LoopedBuffer looped;
+    private final short[] block = new short[BLOCK_FRAMES];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        period = new short[(int) (sampleRate / 211.671346)];
+        new SinSynth(sampleRate, (double) sampleRate / period.length).render(period, 0, period.length);
+        length = (int) (durationSec * sampleRate);
+        numTimes = length / period.length;
+        looped = new LoopedBuffer(period, 1);
+    }
+
+    @Benchmark
+    public short[] concatNTimes(SampleCounter counter) {
+        short[] tiled = Util.concatNTimes(period, numTimes);
+        counter.samples += tiled.length;
+        return tiled;
+    }
+
+    @Benchmark
+    public short[] concatTillLength(SampleCounter counter) {
+        short[] tiled = Util.concatTillLength(period, length);
+        counter.samples += tiled.length;
+        return tiled;
+    }
+
+    @Benchmark
+    public short[] loopedBuffer(SampleCounter counter) {
+        for (int done = 0; done < length; done += BLOCK_FRAMES) {
+            looped.render(block, 0, Math.min(BLOCK_FRAMES, length - done));
+        }
+        counter.samples += length;
+        return block;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.frequencyplayer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+// 16 bit stereo wav IO through every sample type of WavFile, in blocks the way the exporter
+// streams them. Writes go to memory so the conversion is measured and not the disk. Reads come
+// from a file written once per trial, which sits in the page cache after the first pass.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class WavFileBenchmark {
+
+    private static final int NUM_CHANNELS = 2;
+    private static final int BITS = 16;
+    private static final int BLOCK_FRAMES = 4096;
+
+    @Param({"44100", "48000", "96000"})
+    public int sampleRate;
+
+    @Param({"1", "10", "60"})
+    public double durationSec;
+
+    private long numFrames;
+    private ByteBuffer target;
+    private File file;
+
+    private final short[] shorts = new short[NUM_CHANNELS * BLOCK_FRAMES];
+    private final int[] ints = new int[NUM_CHANNELS * BLOCK_FRAMES];
+    private final long[] longs = new long[NUM_CHANNELS * BLOCK_FRAMES];
+    private final double[] doubles = new double[NUM_CHANNELS * BLOCK_FRAMES];
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, WavFileException {
+        numFrames = (long) (durationSec * sampleRate);
+        target = ByteBuffer.allocate((int) WavFile.getFileSize(NUM_CHANNELS, numFrames, BITS));
+
+        new BinauralSource(sampleRate, 211.671346, 4.0, 180.0).render(shorts, 0, BLOCK_FRAMES);
+        for (int i = 0; i < shorts.length; i++) {
+            ints[i] = shorts[i];
+            longs[i] = shorts[i];
+            doubles[i] = shorts[i] / 32768.0;
+        }
+
+        file = File.createTempFile("benchmark", Binaural.FILE_EXTENSION);
+        WavFile wavFile = WavFile.newWavFile(file, NUM_CHANNELS, numFrames, BITS, sampleRate);
+        for (long written = 0; written < numFrames; ) {
+            written += wavFile.writeFrames(shorts, (int) Math.min(BLOCK_FRAMES, numFrames - written));
+        }
+        wavFile.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    private WavFile newTarget() throws IOException, WavFileException {
+        target.clear();
+        return WavFile.newWavFile(target, NUM_CHANNELS, numFrames, BITS, sampleRate);
+    }
+
+    private long count(SampleCounter counter) {
+        counter.samples += NUM_CHANNELS * numFrames;
+        return numFrames;
+    }
+
+    @Benchmark
+    public long writeShort(SampleCounter counter) throws IOException, WavFileException {
+        WavFile wavFile = newTarget();
+        while (wavFile.getFramesRemaining() > 0) wavFile.writeFrames(shorts, BLOCK_FRAMES);
+        wavFile.close();
+        return count(counter);
+    }
+
+    @Benchmark
+    public long writeInt(SampleCounter counter) throws IOException, WavFileException {
+        WavFile wavFile = newTarget();
+        while (wavFile.getFramesRemaining() > 0) wavFile.writeFrames(ints, BLOCK_FRAMES);
+        wavFile.close();
+        return count(counter);
+    }
+
+    @Benchmark
+    public long writeLong(SampleCounter counter) throws IOException, WavFileException {
+        WavFile wavFile = newTarget();
+        while (wavFile.getFramesRemaining() > 0) wavFile.writeFrames(longs, BLOCK_FRAMES);
+        wavFile.close();
+        return count(counter);
+    }
+
+    @Benchmark
+    public long writeDouble(SampleCounter counter) throws IOException, WavFileException {
+        WavFile wavFile = newTarget();
+        while (wavFile.getFramesRemaining() > 0) wavFile.writeFrames(doubles, BLOCK_FRAMES);
+        wavFile.close();
+        return count(counter);
+    }
+
+    @Benchmark
+    public long readShort(SampleCounter counter) throws IOException, WavFileException {
+        WavFile wavFile = WavFile.openWavFile(file);
+        while (wavFile.readFrames(shorts, BLOCK_FRAMES) > 0) ;
+        wavFile.close();
+        return count(counter);
+    }
+
+    @Benchmark
+    public long readInt(SampleCounter counter) throws IOException, WavFileException {
+        WavFile wavFile = WavFile.openWavFile(file);
+        while (wavFile.readFrames(ints, BLOCK_FRAMES) > 0) ;
+        wavFile.close();
+        return count(counter);
+    }
+
+    @Benchmark
+    public long readLong(SampleCounter counter) throws IOException, WavFileException {
+        WavFile wavFile = WavFile.openWavFile(file);
+        while (wavFile.readFrames(longs, BLOCK_FRAMES) > 0) ;
+        wavFile.close();
+        return count(counter);
+    }
+
+    @Benchmark
+    public long readDouble(SampleCounter counter) throws IOException, WavFileException {
+        WavFile wavFile = WavFile.openWavFile(file);
+        while (wavFile.readFrames(doubles, BLOCK_FRAMES) > 0) ;
+        wavFile.close();
+        return count(counter);
+    }
+}
@@ -0,0 +1,9 @@
+package android.content;
+
+import java.io.File;
+
+// Host stand-in for the part of the framework context the shared sources use.
+public abstract class Context {
+
+    public abstract File getCacheDir();
+}
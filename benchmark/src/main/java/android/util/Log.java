@@ -0,0 +1,13 @@
+package android.util;
+
+// Host stand-in for the framework logger, so the shared sources run on a desktop JVM.
+// Benchmarks measure synthesis, not logging, so messages are dropped.
+public final class Log {
+
+    private Log() {
+    }
+
+    public static int d(String tag, String msg) {
+        return 0;
+    }
+}
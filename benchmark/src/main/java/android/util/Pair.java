@@ -0,0 +1,13 @@
+package android.util;
+
+// Host stand-in for the framework pair used by Util.
+public class Pair<F, S> {
+
+    public final F first;
+    public final S second;
+
+    public Pair(F first, S second) {
+        this.first = first;
+        this.second = second;
+    }
+}